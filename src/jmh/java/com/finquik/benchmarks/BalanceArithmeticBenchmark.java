@@ -0,0 +1,75 @@
+package com.finquik.benchmarks;
+
+import com.finquik.models.CategoryType;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The BigDecimal arithmetic behind account balances: the per-account deltas accumulated by batch creation,
+ * the net delta of an update and the running sum of a month of amounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalanceArithmeticBenchmark {
+
+    private static final int ACCOUNTS = 5;
+
+    @Param({"50", "1000"})
+    private int transactions;
+
+    private BigDecimal[] amounts;
+    private CategoryType[] types;
+    private long[] accountIds;
+
+    @Setup
+    public void createAmounts() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        amounts = new BigDecimal[transactions];
+        types = new CategoryType[transactions];
+        accountIds = new long[transactions];
+        for (int i = 0; i < transactions; i++) {
+            // Scale 4, as the amounts are read from numeric(19,4) columns
+            amounts[i] = BigDecimal.valueOf(random.nextLong(1, 10_000_000), 4);
+            types[i] = random.nextInt(4) == 0 ? CategoryType.INCOME : CategoryType.EXPENSE;
+            accountIds[i] = random.nextInt(ACCOUNTS);
+        }
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> accumulateBalanceDeltas() {
+        Map<Long, BigDecimal> balanceDeltas = new HashMap<>();
+        for (int i = 0; i < transactions; i++) {
+            balanceDeltas.merge(accountIds[i], types[i].signedAmount(amounts[i]), BigDecimal::add);
+        }
+        return balanceDeltas;
+    }
+
+    @Benchmark
+    public BigDecimal netUpdateDeltas() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 1; i < transactions; i++) {
+            BigDecimal originalDelta = types[i - 1].signedAmount(amounts[i - 1]);
+            BigDecimal newDelta = types[i].signedAmount(amounts[i]);
+            total = total.add(newDelta.subtract(originalDelta));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal runningBalance() {
+        BigDecimal balance = BigDecimal.ZERO;
+        for (int i = 0; i < transactions; i++) {
+            balance = balance.add(types[i].signedAmount(amounts[i]));
+        }
+        return balance;
+    }
+}
@@ -0,0 +1,80 @@
+package com.finquik.benchmarks;
+
+import com.finquik.DTOs.TransactionResponse;
+import com.finquik.models.*;
+import com.finquik.services.mappers.ResponseMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of transactions (with their account and category) to the responses of the API, one at a time and
+ * for a full page as the list endpoints do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private Transaction transaction;
+    private List<Transaction> page;
+
+    @Setup
+    public void createTransactions() {
+        User user = User.builder().id(1L).email("user@finquik.com").firstName("Ana").lastName("Pérez").build();
+        Account account = Account.builder()
+                .id(10L)
+                .user(user)
+                .name("Checking")
+                .type(AccountType.BANK_ACCOUNT)
+                .initialBalance(new BigDecimal("1000.0000"))
+                .currentBalance(new BigDecimal("2450.7500"))
+                .currency("ARS")
+                .createdAt(LocalDateTime.of(2024, 1, 1, 9, 0))
+                .updatedAt(LocalDateTime.of(2024, 6, 1, 9, 0))
+                .build();
+        Category category = Category.builder()
+                .id(20L)
+                .user(user)
+                .name("Groceries")
+                .type(CategoryType.EXPENSE)
+                .iconName("cart")
+                .build();
+
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(Transaction.builder()
+                    .id(1_000L + i)
+                    .amount(new BigDecimal("125.5000").add(BigDecimal.valueOf(i)))
+                    .description("Supermarket purchase " + i)
+                    .iconName("cart")
+                    .transactionDate(LocalDate.of(2024, 6, 1).plusDays(i % 28))
+                    .createdAt(LocalDateTime.of(2024, 6, 1, 12, 0))
+                    .user(user)
+                    .account(account)
+                    .category(category)
+                    .build());
+        }
+        transaction = page.get(0);
+    }
+
+    @Benchmark
+    public TransactionResponse mapTransaction() {
+        return ResponseMapper.toTransactionResponse(transaction);
+    }
+
+    @Benchmark
+    public List<TransactionResponse> mapPage() {
+        return page.stream().map(ResponseMapper::toTransactionResponse).toList();
+    }
+}
@@ -0,0 +1,83 @@
+package com.finquik.benchmarks;
+
+import com.finquik.DTOs.DescriptionSearchMode;
+import com.finquik.DTOs.TransactionFilter;
+import com.finquik.models.*;
+import com.finquik.repositories.specifications.TransactionSpecification;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Composition of the transaction filter specifications, and their translation to a criteria predicate.
+ * Hibernate is bootstrapped with the PostgreSQL dialect but without a database connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionSpecificationBenchmark {
+
+    private static final Long USER_ID = 1L;
+
+    @Param({"CONTAINS", "PREFIX", "PHRASE"})
+    private DescriptionSearchMode searchMode;
+
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+    private CriteriaBuilder criteriaBuilder;
+    private TransactionFilter filter;
+
+    @Setup
+    public void bootstrapHibernate() {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .applySetting("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClasses(User.class, Account.class, Category.class, Transaction.class,
+                        TransactionRollup.class, DeletedRecord.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        criteriaBuilder = sessionFactory.getCriteriaBuilder();
+
+        filter = new TransactionFilter();
+        filter.setStartDate(LocalDate.of(2024, 1, 1));
+        filter.setEndDate(LocalDate.of(2024, 12, 31));
+        filter.setAccountId(10L);
+        filter.setCategoryId(20L);
+        filter.setType(CategoryType.EXPENSE);
+        filter.setDescription("Súper mercado del barrio");
+        filter.setSearchMode(searchMode);
+    }
+
+    @TearDown
+    public void closeHibernate() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Benchmark
+    public Specification<Transaction> composeFromFilter() {
+        return TransactionSpecification.fromFilter(USER_ID, filter);
+    }
+
+    @Benchmark
+    public Predicate buildPredicate() {
+        CriteriaQuery<Transaction> query = criteriaBuilder.createQuery(Transaction.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        return TransactionSpecification.fromFilter(USER_ID, filter).toPredicate(root, query, criteriaBuilder);
+    }
+}
@@ -0,0 +1,66 @@
+package com.finquik.loadtest;
+
+import com.finquik.common.ids.TimeOrderedIdGenerator;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares inserting rows one round trip at a time with a database-generated identity (what Hibernate has to do
+ * for IDENTITY entities) against JDBC batches with IDs generated in the application. Only reports the rates, how
+ * far apart they are depends on the latency to the database.
+ * <p>
+ * Runs against an embedded PostgreSQL, with {@code ./gradlew insertThroughputBenchmark}.
+ */
+public final class InsertThroughputBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int BATCH_SIZE = 50;
+
+    private InsertThroughputBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start();
+             ConfigurableApplicationContext application = LoadTestRunner.startApplication(postgres, "postgres")) {
+            JdbcTemplate jdbcTemplate = application.getBean(JdbcTemplate.class);
+            jdbcTemplate.execute("CREATE TABLE benchmark_identity_rows (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, amount numeric(19,4), description varchar(255))");
+            jdbcTemplate.execute("CREATE TABLE benchmark_generated_rows (id bigint PRIMARY KEY, amount numeric(19,4), description varchar(255))");
+
+            long identityNanos = timed(() -> {
+                for (int i = 0; i < ROWS; i++) {
+                    jdbcTemplate.queryForObject(
+                            "INSERT INTO benchmark_identity_rows (amount, description) VALUES (?, ?) RETURNING id",
+                            Long.class, BigDecimal.valueOf(i), "row " + i);
+                }
+            });
+
+            TimeOrderedIdGenerator idGenerator = application.getBean(TimeOrderedIdGenerator.class);
+            long batchedNanos = timed(() -> {
+                List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+                for (int i = 0; i < ROWS; i++) {
+                    batch.add(new Object[]{idGenerator.nextId(), BigDecimal.valueOf(i), "row " + i});
+                    if (batch.size() == BATCH_SIZE || i == ROWS - 1) {
+                        jdbcTemplate.batchUpdate(
+                                "INSERT INTO benchmark_generated_rows (id, amount, description) VALUES (?, ?, ?)", batch);
+                        batch.clear();
+                    }
+                }
+            });
+
+            System.out.printf("Per-row identity inserts: %,.0f rows/s%n", ROWS / (identityNanos / 1e9));
+            System.out.printf("Batched inserts with generated IDs (batch size %d): %,.0f rows/s%n",
+                    BATCH_SIZE, ROWS / (batchedNanos / 1e9));
+        }
+    }
+
+    private static long timed(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,119 @@
+package com.finquik.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finquik.FinquikApplication;
+import com.finquik.services.SeedDataService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs the application against an embedded PostgreSQL under a mixed workload and reports the throughput and latency
+ * percentiles of every operation. The seeded data is kept in a template database inside the data directory, so it's
+ * generated once for given seed settings, and every run starts from a fresh copy of it.
+ * <p>
+ * Run with {@code ./gradlew loadTest}, options as {@code -Dloadtest.*} system properties (see {@link LoadTestSettings}).
+ */
+public final class LoadTestRunner {
+
+    private static final String SEED_DATABASE = "finquik_seed";
+    private static final String RUN_DATABASE = "finquik_run";
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        Files.createDirectories(settings.dataDirectory());
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setDataDirectory(settings.dataDirectory())
+                .setCleanDataDirectory(false)
+                .setServerConfig("max_connections", "300")
+                .setServerConfig("shared_buffers", "512MB")
+                .start()) {
+            prepareDatabases(postgres, settings);
+
+            Map<Workload.Operation, EndpointStats> stats;
+            try (ConfigurableApplicationContext application = startApplication(postgres, RUN_DATABASE)) {
+                String baseUrl = "http://localhost:" + application.getEnvironment().getRequiredProperty("local.server.port");
+                List<SeededUser> users = SeededUser.loadAll(application.getBean(JdbcTemplate.class));
+                stats = new Workload(baseUrl, users, settings, application.getBean(ObjectMapper.class)).run();
+            }
+            report(stats, settings);
+        }
+    }
+
+    // Seeds the template database unless it was seeded with the same settings, and copies it for this run
+    private static void prepareDatabases(EmbeddedPostgres postgres, LoadTestSettings settings) {
+        JdbcTemplate admin = new JdbcTemplate(postgres.getPostgresDatabase());
+        List<String> signature = admin.queryForList(
+                "SELECT shobj_description(oid, 'pg_database') FROM pg_database WHERE datname = ?", String.class, SEED_DATABASE);
+
+        if (!signature.equals(List.of(settings.seedSignature()))) {
+            System.out.printf("Seeding %,d users and %,d transactions...%n", settings.users(), settings.transactions());
+            long start = System.nanoTime();
+            admin.execute("DROP DATABASE IF EXISTS " + SEED_DATABASE + " WITH (FORCE)");
+            admin.execute("CREATE DATABASE " + SEED_DATABASE);
+            try (ConfigurableApplicationContext application = startApplication(postgres, SEED_DATABASE)) {
+                SeedPartitions.createFrom(application, YearMonth.now().minusMonths(settings.months() - 1));
+                application.getBean(SeedDataService.class).seed(settings.seedDataProperties());
+            }
+            admin.execute("COMMENT ON DATABASE " + SEED_DATABASE + " IS '" + settings.seedSignature() + "'");
+            System.out.printf("Seeded in %,d s%n", (System.nanoTime() - start) / 1_000_000_000L);
+        }
+
+        admin.execute("DROP DATABASE IF EXISTS " + RUN_DATABASE + " WITH (FORCE)");
+        admin.execute("CREATE DATABASE " + RUN_DATABASE + " TEMPLATE " + SEED_DATABASE);
+    }
+
+    // Command line arguments, so they take precedence over a local application.properties
+    static ConfigurableApplicationContext startApplication(EmbeddedPostgres postgres, String database, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", database) + "&reWriteBatchedInserts=true",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=validate",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.hbm2ddl.extra_physical_table_types=PARTITIONED TABLE",
+                "--spring.flyway.postgresql.transactional-lock=false",
+                "--server.port=0",
+                "--app.jwt.secret=load-test-secret-that-is-long-enough-for-hmac512-signatures-0123456789",
+                "--app.jwt.expiration-ms=3600000",
+                // The seeded history must stay in its monthly partitions
+                "--app.archive.horizon-months=0"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(FinquikApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private static void report(Map<Workload.Operation, EndpointStats> stats, LoadTestSettings settings) throws IOException {
+        double seconds = settings.duration().toMillis() / 1000.0;
+        String header = "operation,requests,requests_per_second,failures,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+        Files.createDirectories(settings.report().toAbsolutePath().getParent());
+
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(settings.report()))) {
+            csv.println(header);
+            System.out.printf("%n%-8s %10s %10s %8s %9s %9s %9s %9s %9s%n",
+                    "", "requests", "req/s", "failed", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            for (Map.Entry<Workload.Operation, EndpointStats> entry : stats.entrySet()) {
+                EndpointStats endpoint = entry.getValue();
+                Object[] values = {entry.getKey(), endpoint.requests(), endpoint.requests() / seconds, endpoint.failures(),
+                        endpoint.percentileMillis(50), endpoint.percentileMillis(90), endpoint.percentileMillis(99),
+                        endpoint.percentileMillis(99.9), endpoint.maxMillis()};
+                System.out.printf("%-8s %10d %10.1f %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n", values);
+                csv.printf(Locale.ROOT, "%s,%d,%.1f,%d,%.2f,%.2f,%.2f,%.2f,%.2f%n", values);
+            }
+        }
+        System.out.printf("%nResults written to %s%n", settings.report().toAbsolutePath());
+    }
+}
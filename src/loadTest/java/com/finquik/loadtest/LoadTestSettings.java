@@ -0,0 +1,55 @@
+package com.finquik.loadtest;
+
+import com.finquik.config.SeedDataProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Options of the load test, read from {@code -Dloadtest.*} system properties.
+ *
+ * @param users Seeded users.
+ * @param transactions Seeded transactions, spread over the accounts and categories of every user.
+ * @param months Months of history covered by the seeded transactions, up to today.
+ * @param concurrency Concurrent virtual users, each one sending its next request as soon as the last one ends.
+ * @param warmup Time during which requests are sent but not measured.
+ * @param duration Measured time.
+ * @param dataDirectory Data directory of the embedded PostgreSQL, where the seeded database is kept between runs.
+ * @param report CSV file the results are written to.
+ */
+public record LoadTestSettings(int users, int transactions, int months, int concurrency,
+                               Duration warmup, Duration duration, Path dataDirectory, Path report) {
+
+    // Password of every seeded user
+    static final String PASSWORD = "loadtest-password";
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.users", 2_000),
+                Integer.getInteger("loadtest.transactions", 2_000_000),
+                Integer.getInteger("loadtest.months", 24),
+                Integer.getInteger("loadtest.concurrency", 64),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT30S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT2M")),
+                Path.of(System.getProperty("loadtest.data-directory", "build/loadtest/postgres")),
+                Path.of(System.getProperty("loadtest.report", "build/loadtest/report.csv")));
+    }
+
+    public SeedDataProperties seedDataProperties() {
+        SeedDataProperties properties = new SeedDataProperties();
+        properties.setUsers(users);
+        properties.setTransactions(transactions);
+        properties.setMonths(months);
+        properties.setPassword(PASSWORD);
+        // Within the default pool of 10 connections, every loading thread holds one
+        properties.setThreads(8);
+        return properties;
+    }
+
+    /**
+     * Identifies the seeded data, a database seeded with other values is seeded again.
+     */
+    public String seedSignature() {
+        return "users=" + users + ";transactions=" + transactions + ";months=" + months;
+    }
+}
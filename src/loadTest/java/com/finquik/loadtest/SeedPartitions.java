@@ -0,0 +1,49 @@
+package com.finquik.loadtest;
+
+import com.finquik.repositories.TransactionPartitionRepository;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Gives every seeded month its own partition of transactions in the fresh load test database, as production has
+ * after months of maintenance. Otherwise the seeded history would be loaded into transactions_archive, whose range
+ * starts wherever the oldest partition created by the migrations does.
+ */
+final class SeedPartitions {
+
+    private static final String ARCHIVE = "transactions_archive";
+
+    private SeedPartitions() {
+    }
+
+    /**
+     * Shrinks the range of the (still empty) archive to the dates before a month, and creates the partitions of the
+     * months it covered.
+     *
+     * @param application The application started on the database to seed.
+     * @param firstMonth  The oldest seeded month.
+     */
+    static void createFrom(ApplicationContext application, YearMonth firstMonth) {
+        JdbcTemplate jdbcTemplate = application.getBean(JdbcTemplate.class);
+        TransactionPartitionRepository partitionRepository = application.getBean(TransactionPartitionRepository.class);
+        List<YearMonth> existing = partitionRepository.findMonthlyPartitions();
+        if (existing.isEmpty() || !firstMonth.isBefore(existing.get(0))) {
+            return;
+        }
+        YearMonth oldestPartition = existing.get(0);
+
+        application.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            partitionRepository.lockPartitionMaintenance();
+            jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + ARCHIVE);
+            for (YearMonth month = firstMonth; month.isBefore(oldestPartition); month = month.plusMonths(1)) {
+                partitionRepository.createMonthlyPartition(month);
+            }
+            jdbcTemplate.execute("ALTER TABLE transactions ATTACH PARTITION " + ARCHIVE
+                    + " FOR VALUES FROM (MINVALUE) TO ('" + firstMonth.atDay(1) + "')");
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.finquik.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A seeded user with the IDs of its accounts and categories, which the workload needs to build its requests.
+ */
+record SeededUser(String email, List<Long> accountIds, List<Long> incomeCategoryIds, List<Long> expenseCategoryIds) {
+
+    /**
+     * Reads the seeded users back from the database, so a database seeded by an earlier run can be reused.
+     */
+    static List<SeededUser> loadAll(JdbcTemplate jdbcTemplate) {
+        Map<Long, SeededUser> users = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, email FROM users ORDER BY id", rs -> {
+            users.put(rs.getLong(1), new SeededUser(rs.getString(2), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+        });
+        jdbcTemplate.query("SELECT user_id, id FROM accounts ORDER BY id", rs -> {
+            users.get(rs.getLong(1)).accountIds().add(rs.getLong(2));
+        });
+        jdbcTemplate.query("SELECT user_id, id, type FROM categories ORDER BY id", rs -> {
+            SeededUser user = users.get(rs.getLong(1));
+            ("INCOME".equals(rs.getString(3)) ? user.incomeCategoryIds() : user.expenseCategoryIds()).add(rs.getLong(2));
+        });
+        return List.copyOf(users.values());
+    }
+}
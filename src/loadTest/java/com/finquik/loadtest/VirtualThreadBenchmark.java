@@ -0,0 +1,236 @@
+package com.finquik.loadtest;
+
+import com.finquik.security.CustomUserDetails;
+import com.finquik.security.jwt.JwtTokenProvider;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares serving requests on Tomcat's platform-thread pool against virtual threads, with the same connection
+ * pool size. Clients alternate between a slow query (holding a connection) and a request that needs no database,
+ * so the slow-query burst shows in the latency of both. The JFR events of virtual threads blocked while pinned to
+ * their carrier thread are recorded during the virtual-thread run, and reported by the frame that pinned them.
+ * <p>
+ * Starts the application twice against an embedded PostgreSQL, run with {@code ./gradlew virtualThreadBenchmark}.
+ */
+public final class VirtualThreadBenchmark {
+
+    private static final int POOL_SIZE = 20;
+    private static final int CLIENTS = 400;
+    private static final int REQUESTS_PER_CLIENT = 50;
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 5;
+    private static final String SLOW_QUERY_SECONDS = "0.05";
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int REPORTED_PINNING_SITES = 10;
+
+    private VirtualThreadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            Result platform = run(postgres, false);
+            PinnedEvents pinned = new PinnedEvents();
+            Result virtual;
+            try (RecordingStream recording = new RecordingStream()) {
+                // Every pinned park, not only those over the default 20 ms threshold
+                recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+                recording.onEvent(PINNED_EVENT, pinned::record);
+                recording.startAsync();
+                virtual = run(postgres, true);
+                // Waits until the recorded events are handled
+                recording.stop();
+            }
+
+            System.out.printf("Connection pool of %d, %d concurrent clients, %d requests each%n",
+                    POOL_SIZE, CLIENTS, REQUESTS_PER_CLIENT);
+            platform.print("Platform threads");
+            virtual.print("Virtual threads");
+            pinned.print();
+
+            if (platform.failures() > 0 || virtual.failures() > 0) {
+                throw new IllegalStateException("Some requests failed, the results aren't comparable");
+            }
+        }
+    }
+
+    private static Result run(EmbeddedPostgres postgres, boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = LoadTestRunner.startApplication(postgres, "postgres",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "--spring.datasource.hikari.connection-timeout=30000",
+                "--benchmarks.thread-mode-endpoints=true")) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            CustomUserDetails principal = CustomUserDetails.fromClaims(-1L, "benchmark@finquik.com", "Bench", "Mark");
+            String token = context.getBean(JwtTokenProvider.class).generateToken(
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+            Load load = new Load("http://localhost:" + port, token);
+            load.run(WARMUP_REQUESTS_PER_CLIENT);
+            return load.run(REQUESTS_PER_CLIENT);
+        }
+    }
+
+    private record Load(String baseUrl, String token) {
+
+        Result run(int requestsPerClient) throws Exception {
+            // Virtual client threads, so the load generator itself is never the bottleneck
+            try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+                 ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<long[][]>> futures = new ArrayList<>(CLIENTS);
+                long start = System.nanoTime();
+                for (int i = 0; i < CLIENTS; i++) {
+                    futures.add(clients.submit(() -> runClient(client, requestsPerClient)));
+                }
+
+                List<Long> slow = new ArrayList<>();
+                List<Long> fast = new ArrayList<>();
+                int failures = 0;
+                for (Future<long[][]> future : futures) {
+                    long[][] latencies = future.get();
+                    for (long nanos : latencies[0]) {
+                        if (nanos < 0) failures++; else slow.add(nanos);
+                    }
+                    for (long nanos : latencies[1]) {
+                        if (nanos < 0) failures++; else fast.add(nanos);
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                return new Result(slow.size() + fast.size(), elapsed, percentile(slow, 0.99), percentile(fast, 0.99), failures);
+            }
+        }
+
+        // Latencies of the slow and of the fast requests of one client, -1 for a failed request
+        private long[][] runClient(HttpClient client, int requests) {
+            long[] slow = new long[(requests + 1) / 2];
+            long[] fast = new long[requests / 2];
+            for (int i = 0; i < requests; i++) {
+                boolean slowRequest = i % 2 == 0;
+                long latency = send(client, slowRequest ? "/api/benchmark/slow" : "/api/benchmark/fast");
+                if (slowRequest) {
+                    slow[i / 2] = latency;
+                } else {
+                    fast[i / 2] = latency;
+                }
+            }
+            return new long[][]{slow, fast};
+        }
+
+        private long send(HttpClient client, String path) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                return response.statusCode() == 200 ? System.nanoTime() - start : -1;
+            } catch (Exception e) {
+                return -1;
+            }
+        }
+    }
+
+    private record Result(int requests, long elapsedNanos, long slowP99Nanos, long fastP99Nanos, int failures) {
+
+        void print(String mode) {
+            System.out.printf("%s: %,.0f requests/s, p99 %,.1f ms with a slow query, p99 %,.1f ms without database, %d failed%n",
+                    mode, requests / (elapsedNanos / 1e9), slowP99Nanos / 1e6, fastP99Nanos / 1e6, failures);
+        }
+    }
+
+    /**
+     * Pinned parks of virtual threads, counted by the innermost application frame of their stack (or the innermost
+     * frame when no application code is involved, e.g. inside a pool or driver thread).
+     */
+    private static class PinnedEvents {
+
+        private final Map<String, Long> countsBySite = new ConcurrentHashMap<>();
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        void record(RecordedEvent event) {
+            count.increment();
+            totalNanos.add(event.getDuration().toNanos());
+            countsBySite.merge(site(event.getStackTrace()), 1L, Long::sum);
+        }
+
+        void print() {
+            System.out.printf("Virtual threads blocked while pinned: %,d times, %,.1f ms in total%n",
+                    count.sum(), totalNanos.sum() / 1e6);
+            countsBySite.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(REPORTED_PINNING_SITES)
+                    .forEach(site -> System.out.printf("  %,8d  %s%n", site.getValue(), site.getKey()));
+        }
+
+        private static String site(RecordedStackTrace stackTrace) {
+            if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+                return "(no stack trace)";
+            }
+            RecordedFrame frame = stackTrace.getFrames().stream()
+                    .filter(candidate -> candidate.getMethod().getType().getName().startsWith("com.finquik."))
+                    .findFirst()
+                    .orElse(stackTrace.getFrames().get(0));
+            return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                    + ":" + frame.getLineNumber();
+        }
+    }
+
+    private static long percentile(List<Long> latencies, double percentile) {
+        if (latencies.isEmpty()) {
+            return 0;
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+    /**
+     * Endpoints of the benchmark, only registered in the contexts it starts.
+     */
+    @RestController
+    @ConditionalOnProperty(name = "benchmarks.thread-mode-endpoints", havingValue = "true")
+    static class BenchmarkEndpoints {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        BenchmarkEndpoints(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @GetMapping("/api/benchmark/slow")
+        String slow() {
+            jdbcTemplate.queryForObject("SELECT pg_sleep(" + SLOW_QUERY_SECONDS + ")::text", String.class);
+            return "slow";
+        }
+
+        @GetMapping("/api/benchmark/fast")
+        String fast() {
+            return "fast";
+        }
+    }
+}
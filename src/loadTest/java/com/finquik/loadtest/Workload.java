@@ -0,0 +1,219 @@
+package com.finquik.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Closed-loop mixed workload: every virtual user is logged in as one seeded user and sends its next request,
+ * picked at random by the weight of each operation, as soon as the last one ends. Only the requests that start
+ * after the warmup are measured.
+ */
+class Workload {
+
+    enum Operation {
+        LOGIN(5), LIST(35), SUMMARY(20), CREATE(15), UPDATE(15), DELETE(10);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final int TOTAL_WEIGHT = Arrays.stream(Operation.values()).mapToInt(operation -> operation.weight).sum();
+    private static final String[] SEARCH_TERMS = {"super", "cafe", "farmacia", "uber", "alquiler"};
+
+    private final String baseUrl;
+    private final List<SeededUser> users;
+    private final LoadTestSettings settings;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+
+    Workload(String baseUrl, List<SeededUser> users, LoadTestSettings settings, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.settings = settings;
+        this.objectMapper = objectMapper;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats());
+        }
+    }
+
+    /**
+     * Runs the warmup and the measured time.
+     *
+     * @return The statistics of the measured requests of every operation.
+     */
+    Map<Operation, EndpointStats> run() {
+        long measureFrom = System.nanoTime() + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+
+        try (ExecutorService virtualUsers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                SeededUser user = users.get(i % users.size());
+                long seed = i;
+                virtualUsers.submit(() -> new Session(user, new SplittableRandom(seed)).run(measureFrom, end));
+            }
+        }
+        return stats;
+    }
+
+    private class Session {
+
+        private final SeededUser user;
+        private final SplittableRandom random;
+        // Transactions created by this session, the only ones it updates and deletes
+        private final Deque<Long> createdIds = new ArrayDeque<>();
+        private String token;
+
+        Session(SeededUser user, SplittableRandom random) {
+            this.user = user;
+            this.random = random;
+        }
+
+        void run(long measureFrom, long end) {
+            login();
+            while (System.nanoTime() < end) {
+                Operation operation = nextOperation();
+                long start = System.nanoTime();
+                boolean succeeded;
+                try {
+                    succeeded = execute(operation);
+                } catch (IOException | RuntimeException ex) {
+                    succeeded = false;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (start >= measureFrom) {
+                    stats.get(operation).record(System.nanoTime() - start, succeeded);
+                }
+            }
+        }
+
+        private Operation nextOperation() {
+            int pick = random.nextInt(TOTAL_WEIGHT);
+            for (Operation operation : Operation.values()) {
+                pick -= operation.weight;
+                if (pick < 0) {
+                    // Nothing to update or delete until the session has created something
+                    boolean needsCreated = operation == Operation.UPDATE || operation == Operation.DELETE;
+                    return needsCreated && createdIds.isEmpty() ? Operation.CREATE : operation;
+                }
+            }
+            throw new IllegalStateException("Weights don't add up to " + TOTAL_WEIGHT);
+        }
+
+        private boolean execute(Operation operation) throws IOException, InterruptedException {
+            return switch (operation) {
+                case LOGIN -> login();
+                case LIST -> send(get(listQuery())).statusCode() == 200;
+                case SUMMARY -> send(get("/api/transactions/summary?startDate="
+                        + LocalDate.now().withDayOfMonth(1).minusMonths(random.nextInt(12)) + "&endDate=" + LocalDate.now()))
+                        .statusCode() == 200;
+                case CREATE -> {
+                    HttpResponse<String> response = send(withBody("/api/transactions", "POST", transactionBody()));
+                    if (response.statusCode() != 201 && response.statusCode() != 200) {
+                        yield false;
+                    }
+                    createdIds.addLast(objectMapper.readTree(response.body()).get("id").asLong());
+                    yield true;
+                }
+                case UPDATE -> send(withBody("/api/transactions/" + createdIds.peekLast(), "PUT", transactionBody()))
+                        .statusCode() == 200;
+                case DELETE -> {
+                    int status = send(authorized("/api/transactions/" + createdIds.pollFirst()).DELETE().build()).statusCode();
+                    yield status == 204 || status == 200;
+                }
+            };
+        }
+
+        private boolean login() {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(
+                                Map.of("email", user.email(), "password", LoadTestSettings.PASSWORD))))
+                        .build();
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    return false;
+                }
+                token = objectMapper.readTree(response.body()).get("accessToken").asText();
+                return true;
+            } catch (IOException ex) {
+                return false;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        // The first page of a recent range, narrowed by category, type or description like the app's filters
+        private String listQuery() {
+            LocalDate today = LocalDate.now();
+            StringBuilder query = new StringBuilder("/api/transactions?page=0&size=20&sort=transactionDate,desc");
+            int filter = random.nextInt(10);
+            if (filter < 5) {
+                query.append("&startDate=").append(today.minusDays(30));
+            } else if (filter < 8) {
+                query.append("&startDate=").append(today.minusDays(90))
+                        .append("&categoryId=").append(pick(user.expenseCategoryIds()));
+            } else {
+                query.append("&startDate=").append(today.minusYears(1))
+                        .append("&type=EXPENSE&description=").append(SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]);
+            }
+            return query.toString();
+        }
+
+        private String transactionBody() throws IOException {
+            boolean income = random.nextInt(10) == 0;
+            return objectMapper.writeValueAsString(Map.of(
+                    "amount", BigDecimal.valueOf(random.nextLong(100, 30_000), 2),
+                    "description", "Load test purchase",
+                    "transactionDate", LocalDate.now().minusDays(random.nextInt(60)).toString(),
+                    "accountId", pick(user.accountIds()),
+                    "categoryId", pick(income ? user.incomeCategoryIds() : user.expenseCategoryIds())));
+        }
+
+        private HttpRequest get(String path) {
+            return authorized(path).GET().build();
+        }
+
+        private HttpRequest withBody(String path, String method, String body) {
+            return authorized(path)
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        private HttpRequest.Builder authorized(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Authorization", "Bearer " + token);
+        }
+
+        private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+
+        private Long pick(List<Long> ids) {
+            return ids.get(random.nextInt(ids.size()));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.finquik.DTOs;
+
+/**
+ * Represents the size of the time buckets in which transactions are aggregated for analytics.
+ */
+public enum AnalyticsBucket {
+    DAY,
+    WEEK,
+    MONTH,
+    YEAR
+}
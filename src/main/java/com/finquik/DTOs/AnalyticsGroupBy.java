@@ -0,0 +1,10 @@
+package com.finquik.DTOs;
+
+/**
+ * Represents the dimension by which transactions are grouped inside each analytics time bucket.
+ */
+public enum AnalyticsGroupBy {
+    CATEGORY,
+    ACCOUNT,
+    TYPE
+}
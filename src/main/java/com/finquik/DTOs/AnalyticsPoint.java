@@ -0,0 +1,22 @@
+package com.finquik.DTOs;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class AnalyticsPoint {
+
+    // First day of the time bucket
+    private LocalDate period;
+    // ID of the category or account, or the transaction type, depending on the grouping
+    private String key;
+    private String label;
+    private BigDecimal income;
+    private BigDecimal expenses;
+    private BigDecimal net;
+    private long count;
+}
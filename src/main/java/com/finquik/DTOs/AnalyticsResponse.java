@@ -0,0 +1,16 @@
+package com.finquik.DTOs;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class AnalyticsResponse {
+
+    private AnalyticsBucket bucket;
+    private AnalyticsGroupBy groupBy;
+    // Ordered by period and then by key
+    private List<AnalyticsPoint> series;
+}
@@ -0,0 +1,19 @@
+package com.finquik.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    private List<T> content;
+    private int pageSize;
+    // Opaque cursor to request the following page, null when this is the last one
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,16 @@
+package com.finquik.DTOs;
+
+import com.finquik.models.SyncEntityType;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class DeletedRecordResponse {
+
+    private SyncEntityType entityType;
+    private Long id;
+    private LocalDateTime deletedAt;
+}
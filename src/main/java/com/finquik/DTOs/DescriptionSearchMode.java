@@ -0,0 +1,14 @@
+package com.finquik.DTOs;
+
+/**
+ * Represents how the description filter of the transaction list is matched.
+ * Matching is always done on the normalized description (lower-cased, without accents).
+ */
+public enum DescriptionSearchMode {
+    // Every word of the search text appears somewhere in the description, in any order
+    CONTAINS,
+    // Some word of the description starts with the search text (type-ahead)
+    PREFIX,
+    // The description contains the search text as written, word after word
+    PHRASE
+}
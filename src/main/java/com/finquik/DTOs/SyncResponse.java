@@ -0,0 +1,26 @@
+package com.finquik.DTOs;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Changes of the user's data since a sync cursor: rows created or updated, and tombstones of deleted rows.
+ * Clients apply them as upserts and deletes, and send {@code nextCursor} on their next sync, right away while
+ * {@code hasMore} is set. When {@code reset} is set the cursor was too old to resume from (the tombstones it
+ * needed were purged, or the user moved to another shard): the changes start over from scratch, and clients
+ * have to replace their local data with them.
+ */
+@Data
+@Builder
+public class SyncResponse {
+
+    private List<AccountResponse> accounts;
+    private List<CategoryResponse> categories;
+    private List<TransactionResponse> transactions;
+    private List<DeletedRecordResponse> deleted;
+    private String nextCursor;
+    private boolean hasMore;
+    private boolean reset;
+}
@@ -0,0 +1,20 @@
+package com.finquik.DTOs;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TransactionBatchItemResult {
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+
+    // Position of the item in the submitted batch
+    private int index;
+    private Status status;
+    private Long id;
+    private String error;
+}
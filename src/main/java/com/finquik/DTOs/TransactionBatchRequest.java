@@ -0,0 +1,17 @@
+package com.finquik.DTOs;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TransactionBatchRequest {
+
+    @Valid
+    @NotEmpty(message = "Transactions list cannot be empty")
+    @Size(max = 1000, message = "A batch can contain up to 1000 transactions")
+    private List<TransactionRequest> transactions;
+}
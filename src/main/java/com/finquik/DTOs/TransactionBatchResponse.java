@@ -0,0 +1,15 @@
+package com.finquik.DTOs;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class TransactionBatchResponse {
+
+    private int createdCount;
+    private int rejectedCount;
+    private List<TransactionBatchItemResult> results;
+}
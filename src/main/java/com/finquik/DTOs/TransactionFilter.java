@@ -0,0 +1,28 @@
+package com.finquik.DTOs;
+
+import com.finquik.models.CategoryType;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters that can be applied when listing the transactions of a user.
+ * Bound from the query parameters of the request; every null field is ignored.
+ */
+@Data
+public class TransactionFilter {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    private Long accountId;
+    private Long categoryId;
+    private CategoryType type;
+    private String description;
+    // How the description filter is matched, CONTAINS when not given
+    private DescriptionSearchMode searchMode;
+}
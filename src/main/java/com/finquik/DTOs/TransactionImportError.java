@@ -0,0 +1,13 @@
+package com.finquik.DTOs;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TransactionImportError {
+
+    // Line of the uploaded file on which the rejected row starts
+    private long line;
+    private String error;
+}
@@ -0,0 +1,31 @@
+package com.finquik.DTOs;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * How the columns of an imported statement map to transaction fields. Columns are matched by header name,
+ * ignoring case; every field has a default so files using the same names need no parameters at all.
+ */
+@Data
+public class TransactionImportMapping {
+
+    @NotBlank(message = "Date column cannot be blank")
+    private String dateColumn = "date";
+
+    @NotBlank(message = "Amount column cannot be blank")
+    private String amountColumn = "amount";
+
+    @NotBlank(message = "Category column cannot be blank")
+    private String categoryColumn = "category";
+
+    // Optional, transactions are imported without description when the file doesn't have this column
+    private String descriptionColumn = "description";
+
+    @NotNull(message = "Delimiter cannot be null")
+    private Character delimiter = ',';
+
+    @NotBlank(message = "Date format cannot be blank")
+    private String dateFormat = "yyyy-MM-dd";
+}
@@ -0,0 +1,17 @@
+package com.finquik.DTOs;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class TransactionImportResponse {
+
+    private long importedCount;
+    private long rejectedCount;
+    private List<TransactionImportError> errors;
+    // True when there were more rejected rows than the ones listed in errors
+    private boolean errorsTruncated;
+}
@@ -5,4 +5,13 @@ import java.math.BigDecimal;
 public record TransactionSummaryDTO(
         BigDecimal totalIncome,
         BigDecimal totalExpenses
-) {}
+) {
+
+    public static TransactionSummaryDTO empty() {
+        return new TransactionSummaryDTO(BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    public TransactionSummaryDTO plus(TransactionSummaryDTO other) {
+        return new TransactionSummaryDTO(totalIncome.add(other.totalIncome), totalExpenses.add(other.totalExpenses));
+    }
+}
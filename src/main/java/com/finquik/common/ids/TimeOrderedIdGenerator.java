@@ -0,0 +1,125 @@
+package com.finquik.common.ids;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates unique, roughly time-ordered 53-bit IDs in the application, so inserts don't need a database
+ * round trip to learn their ID and can be sent in JDBC batches.
+ * <p>
+ * Layout: 41 bits of milliseconds since 2024-01-01 UTC, 4 bits of node ID and 8 bits of sequence.
+ * IDs stay below 2^53, so they are exact as JSON numbers in JavaScript clients.
+ * When the 256 IDs of a millisecond are used up the generator waits for the next one, so an ID never carries
+ * a timestamp ahead of the clock. One instance exists per application (a Spring bean, also used by Hibernate
+ * through {@link TimeOrderedId}), and its node ID is leased in the database (see IdGeneratorConfig): generation
+ * fails once the lease is past the deadline set by its last renewal, and for good once it is lost, since another
+ * instance may be generating IDs with the same node by then.
+ */
+public final class TimeOrderedIdGenerator {
+
+    public static final int MAX_NODE_ID = 15;
+
+    static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    static final int NODE_BITS = 4;
+    static final int SEQUENCE_BITS = 8;
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    // A clock set back further than this (e.g. by a large NTP step) fails generation instead of blocking it
+    static final long MAX_CLOCK_SETBACK_MILLIS = 1_000;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // Last issued timestamp and sequence, as (millis since epoch << SEQUENCE_BITS) | sequence
+    private final AtomicLong lastState = new AtomicLong();
+    // Epoch millis until which the node is known to be leased to this instance, unbounded until a lease sets it
+    private volatile long leasedUntilMillis = Long.MAX_VALUE;
+    private volatile boolean leaseLost;
+
+    public TimeOrderedIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    TimeOrderedIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ", got " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long lastMillis = last >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            checkLease(now + EPOCH_MILLIS);
+
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((last & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                // Same millisecond, or the clock went back: continue the sequence of the last one
+                next = last + 1;
+            } else if (lastMillis - now > MAX_CLOCK_SETBACK_MILLIS) {
+                throw new IllegalStateException("The clock went back " + (lastMillis - now)
+                        + " ms, no IDs can be generated until it catches up");
+            } else {
+                // The sequence of the millisecond is used up: wait for the next one rather than borrowing it
+                Thread.onSpinWait();
+                continue;
+            }
+
+            // Lock-free: only one caller gets each state
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & MAX_SEQUENCE;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * Allows generating IDs until the given time, on every renewal of the node's lease.
+     *
+     * @param epochMillis The time the lease may have expired at, minus a safety margin.
+     */
+    public void renewLease(long epochMillis) {
+        leasedUntilMillis = epochMillis;
+    }
+
+    /**
+     * Stops generating IDs for good, once the node's lease was taken over by another instance.
+     */
+    public void loseLease() {
+        leaseLost = true;
+    }
+
+    private void checkLease(long nowMillis) {
+        if (leaseLost) {
+            throw new IllegalStateException("The lease of ID node " + nodeId
+                    + " was taken over by another instance, no IDs can be generated");
+        }
+        if (nowMillis >= leasedUntilMillis) {
+            throw new IllegalStateException("The lease of ID node " + nodeId
+                    + " wasn't renewed in time, no IDs can be generated until it is");
+        }
+    }
+
+    /**
+     * @return The latest timestamp (epoch millis) carried by an issued ID, or by one about to be issued: the
+     * later of the clock and the last ID.
+     */
+    public long highWaterMillis() {
+        return Math.max(clock.getAsLong(), (lastState.get() >>> SEQUENCE_BITS) + EPOCH_MILLIS);
+    }
+
+    /**
+     * @return The current time of the clock IDs are generated from, in epoch millis.
+     */
+    public long currentTimeMillis() {
+        return clock.getAsLong();
+    }
+}
@@ -0,0 +1,41 @@
+package com.finquik.common.ids;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.GeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+/**
+ * Hibernate generator behind {@link TimeOrderedId}. The ID is known before the INSERT runs,
+ * which lets Hibernate batch the inserts. IDs come from the {@link TimeOrderedIdGenerator} passed in the
+ * {@value #GENERATOR_SETTING} property, the one the JDBC write paths use too.
+ */
+public class TimeOrderedIdentifierGenerator implements BeforeExecutionGenerator {
+
+    public static final String GENERATOR_SETTING = "finquik.ids.generator";
+
+    private final TimeOrderedIdGenerator idGenerator;
+
+    public TimeOrderedIdentifierGenerator(TimeOrderedId annotation, Member member, GeneratorCreationContext context) {
+        // Null when Hibernate is bootstrapped without the application (e.g. by a benchmark), which then can't insert
+        this.idGenerator = (TimeOrderedIdGenerator) context.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSettings().get(GENERATOR_SETTING);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        if (idGenerator == null) {
+            throw new IllegalStateException("No TimeOrderedIdGenerator was passed in " + GENERATOR_SETTING);
+        }
+        return idGenerator.nextId();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EnumSet.of(EventType.INSERT);
+    }
+}
@@ -0,0 +1,43 @@
+package com.finquik.common.pagination;
+
+import com.finquik.common.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position from which the next delta sync has to read changes: the last change already synced, identified by the
+ * database transaction that made it and its sequence number, on a given shard (transaction IDs are only comparable
+ * within one database). It is exchanged with clients as an opaque URL-safe string.
+ */
+public record SyncCursor(int shard, long xid, long seq) {
+
+    /**
+     * @param shard The shard the user is stored in.
+     * @return The position of a sync that hasn't read anything yet.
+     */
+    public static SyncCursor initial(int shard) {
+        return new SyncCursor(shard, 0, 0);
+    }
+
+    public boolean isInitial() {
+        return xid == 0;
+    }
+
+    public String encode() {
+        String raw = shard + ":" + xid + ":" + seq;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected 3 parts");
+            }
+            return new SyncCursor(Integer.parseInt(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor: '" + cursor + "'");
+        }
+    }
+}
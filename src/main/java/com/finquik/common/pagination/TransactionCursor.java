@@ -0,0 +1,40 @@
+package com.finquik.common.pagination;
+
+import com.finquik.common.exceptions.BadRequestException;
+import com.finquik.models.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last transaction returned in a keyset page, ordered by (transactionDate, id) descending.
+ * It is exchanged with clients as an opaque URL-safe string.
+ */
+public record TransactionCursor(LocalDate transactionDate, Long id) {
+
+    private static final String SEPARATOR = ":";
+
+    public static TransactionCursor of(Transaction transaction) {
+        return new TransactionCursor(transaction.getTransactionDate(), transaction.getId());
+    }
+
+    public String encode() {
+        String raw = transactionDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR);
+            if (parts.length != 2) {
+                throw new BadRequestException("Invalid cursor: '" + cursor + "'");
+            }
+            return new TransactionCursor(LocalDate.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BadRequestException("Invalid cursor: '" + cursor + "'");
+        }
+    }
+}
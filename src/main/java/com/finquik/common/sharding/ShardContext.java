@@ -0,0 +1,104 @@
+package com.finquik.common.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Selects the shard (database) used by the connections opened in the current thread.
+ * <p>
+ * Requests of an authenticated user have the shard of the user selected for their whole duration (see
+ * {@code UserShardFilter}). Everything else must select one before touching user data, such as jobs that must run
+ * on every shard, logins and registrations: once the application is ready, connections opened without a shard are
+ * rejected. Selecting a shard only affects transactions started afterwards, since a transaction keeps the
+ * connection it opened with.
+ */
+public final class ShardContext {
+
+    // Holds the user directory, and receives every connection that can't be attributed to a shard
+    public static final int DIRECTORY_SHARD = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+    private static volatile int shardCount = 1;
+
+    private ShardContext() {
+    }
+
+    /**
+     * @return The number of configured shards, 1 when sharding is disabled.
+     */
+    public static int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Sets the number of configured shards. Called once by the data source configuration.
+     */
+    public static void configureShardCount(int count) {
+        shardCount = count;
+    }
+
+    /**
+     * @param email The email of a new user.
+     * @return The shard the user is stored in.
+     */
+    public static int shardForEmail(String email) {
+        return Math.floorMod(email.hashCode(), shardCount);
+    }
+
+    /**
+     * @return The shard explicitly selected in the current thread, or null.
+     */
+    public static Integer currentShard() {
+        return CURRENT.get();
+    }
+
+    public static <T> T callInShard(int shard, Supplier<T> action) {
+        try (Selection ignored = select(shard)) {
+            return action.get();
+        }
+    }
+
+    public static void runInShard(int shard, Runnable action) {
+        callInShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Selects a shard in the current thread until the returned selection is closed, which restores the previous one.
+     * For callers that can't wrap their work in {@link #callInShard}, e.g. because it throws checked exceptions.
+     */
+    public static Selection select(int shard) {
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Shard must be between 0 and " + (shardCount - 1) + ", got " + shard);
+        }
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Runs an action once per shard, each time with that shard selected.
+     */
+    public static void forEachShard(Runnable action) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            runInShard(shard, action);
+        }
+    }
+
+    /**
+     * A shard selected by {@link #select(int)}.
+     */
+    @FunctionalInterface
+    public interface Selection extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,46 @@
+package com.finquik.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * In-process cache for the read endpoints the dashboard reloads on every screen change.
+ * Entries are keyed by the user's data version (see {@link com.finquik.services.cache.UserDataVersionTracker}),
+ * so writes invalidate them by moving the version; size and TTL only bound the memory they use.
+ * The cache advice runs inside the transaction advice, see {@link TransactionConfig}.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE)
+public class CacheConfig {
+
+    public static final String ACCOUNTS_CACHE = "accounts";
+    public static final String CATEGORIES_CACHE = "categories";
+    public static final String TRANSACTION_SUMMARY_CACHE = "transactionSummaries";
+    public static final String TRANSACTION_FIRST_PAGE_CACHE = "transactionFirstPages";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${app.cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.cache.time-to-live:10m}") Duration timeToLive) {
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats());
+        // Caches are created up front so their hit/miss statistics are bound to the meter registry on startup
+        cacheManager.setCacheNames(List.of(
+                ACCOUNTS_CACHE, CATEGORIES_CACHE, TRANSACTION_SUMMARY_CACHE, TRANSACTION_FIRST_PAGE_CACHE));
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+}
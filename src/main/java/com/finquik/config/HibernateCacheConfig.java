@@ -0,0 +1,68 @@
+package com.finquik.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level cache for the reference data read on every transaction write: accounts and categories
+ * by ID. Backed by a local Caffeine JCache provider whose regions are all declared here with their own size;
+ * Hibernate fails on startup if an entity asks for an undeclared region. Hit, miss and put counts per region are
+ * published through the Hibernate metrics.
+ * <p>
+ * Query results are not cached: the query cache is only invalidated by the update timestamps of the local
+ * instance, so a list cached on one instance would survive writes made through the others.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String ACCOUNT_REGION = "accounts";
+    public static final String CATEGORY_REGION = "categories";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${app.entity-cache.accounts.maximum-size:10000}") long accountsMaximumSize,
+            @Value("${app.entity-cache.categories.maximum-size:20000}") long categoriesMaximumSize,
+            @Value("${app.entity-cache.time-to-live:30m}") Duration timeToLive) {
+
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager();
+
+        cacheManager.createCache(ACCOUNT_REGION, regionConfiguration(accountsMaximumSize, timeToLive));
+        cacheManager.createCache(CATEGORY_REGION, regionConfiguration(categoriesMaximumSize, timeToLive));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.use_query_cache", false);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            // Needed for the per-region statistics published as metrics
+            properties.put("hibernate.generate_statistics", true);
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maximumSize, Duration timeToLive) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(
+                new javax.cache.expiry.Duration(TimeUnit.MILLISECONDS, timeToLive.toMillis())));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,41 @@
+package com.finquik.config;
+
+import com.finquik.DTOs.AnalyticsBucket;
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.query.sqm.function.SqmFunctionRegistry;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Registers the SQL functions used by criteria queries that Hibernate doesn't provide out of the box.
+ * Loaded by Hibernate through META-INF/services.
+ */
+public class HibernateFunctionsContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        SqmFunctionRegistry registry = functionContributions.getFunctionRegistry();
+        BasicType<LocalDate> dateType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.LOCAL_DATE);
+
+        // The unit is part of the SQL text (not a bind parameter) so the same expression can be selected and grouped by
+        for (AnalyticsBucket bucket : AnalyticsBucket.values()) {
+            registry.registerPattern(
+                    dateBucketFunction(bucket),
+                    "cast(date_trunc('" + bucket.name().toLowerCase(Locale.ROOT) + "', ?1) as date)",
+                    dateType);
+        }
+    }
+
+    /**
+     * Name of the function that truncates a date to the first day of its bucket.
+     */
+    public static String dateBucketFunction(AnalyticsBucket bucket) {
+        return "date_bucket_" + bucket.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,43 @@
+package com.finquik.config;
+
+import com.finquik.common.ids.TimeOrderedIdGenerator;
+import com.finquik.common.ids.TimeOrderedIdentifierGenerator;
+import com.finquik.repositories.IdGeneratorNodeRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * The {@link TimeOrderedIdGenerator} of the application, shared by Hibernate and the JDBC write paths.
+ * Its node ID is leased in the database on startup (see {@link IdGeneratorNodeLease}).
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean(destroyMethod = "close")
+    public IdGeneratorNodeLease idGeneratorNodeLease(IdGeneratorNodeRepository idGeneratorNodeRepository,
+                                                     ObjectProvider<FlywayMigrationInitializer> flywayMigrationInitializer,
+                                                     @Value("${app.ids.node-id:#{null}}") Integer nodeId,
+                                                     @Value("${app.ids.lease-timeout:30s}") Duration leaseTimeout,
+                                                     @Value("${app.ids.heartbeat-interval:5s}") Duration heartbeatInterval) {
+        // The lease table has to be migrated first
+        flywayMigrationInitializer.ifAvailable(initializer -> {
+        });
+        return IdGeneratorNodeLease.acquire(idGeneratorNodeRepository, nodeId, leaseTimeout, heartbeatInterval);
+    }
+
+    @Bean
+    public TimeOrderedIdGenerator timeOrderedIdGenerator(IdGeneratorNodeLease idGeneratorNodeLease) {
+        return idGeneratorNodeLease.getGenerator();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer timeOrderedIdProperties(TimeOrderedIdGenerator timeOrderedIdGenerator) {
+        return properties -> properties.put(TimeOrderedIdentifierGenerator.GENERATOR_SETTING, timeOrderedIdGenerator);
+    }
+}
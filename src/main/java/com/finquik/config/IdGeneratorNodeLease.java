@@ -0,0 +1,136 @@
+package com.finquik.config;
+
+import com.finquik.common.ids.TimeOrderedIdGenerator;
+import com.finquik.repositories.IdGeneratorNodeRepository;
+import com.finquik.repositories.IdGeneratorNodeRepository.NodeLease;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lease of the node ID of this instance's {@link TimeOrderedIdGenerator}, so two running instances never generate
+ * IDs with the same node. Heartbeats renew it and record a high-water mark a little ahead of the generator,
+ * covering the IDs it may issue until the next one; a new owner of the node refuses to start while its clock is
+ * behind that mark, since it could issue IDs that were already handed out. Closing the lease records the exact mark.
+ * <p>
+ * The generator only issues IDs until the lease timeout, minus one heartbeat interval of margin, has passed since
+ * the last successful renewal, and never again once another instance took the node over.
+ */
+@Slf4j
+public class IdGeneratorNodeLease implements AutoCloseable {
+
+    private final IdGeneratorNodeRepository repository;
+    @Getter
+    private final TimeOrderedIdGenerator generator;
+    private final String owner;
+    private final Duration leaseTimeout;
+    private final Duration heartbeatInterval;
+    private final ScheduledExecutorService heartbeats;
+    // Set on acquire, then only by the heartbeat thread
+    private long lastRenewedMillis;
+
+    private IdGeneratorNodeLease(IdGeneratorNodeRepository repository, TimeOrderedIdGenerator generator, String owner,
+                                 Duration leaseTimeout, Duration heartbeatInterval) {
+        this.repository = repository;
+        this.generator = generator;
+        this.owner = owner;
+        this.leaseTimeout = leaseTimeout;
+        this.heartbeatInterval = heartbeatInterval;
+        // Daemon, so it never keeps the JVM running on its own
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("id-node-heartbeat").daemon().factory());
+    }
+
+    /**
+     * Leases a node ID and starts renewing the lease.
+     *
+     * @param repository        Where the leases are stored.
+     * @param nodeId            The node ID to lease, or null to lease the lowest free one.
+     * @param leaseTimeout      How long the lease is kept without heartbeats, e.g. after a crash.
+     * @param heartbeatInterval How often the lease is renewed.
+     * @return The lease, with a generator for the leased node.
+     * @throws IllegalStateException If the node is leased by another instance, or the clock is behind its high-water mark.
+     */
+    public static IdGeneratorNodeLease acquire(IdGeneratorNodeRepository repository, Integer nodeId,
+                                               Duration leaseTimeout, Duration heartbeatInterval) {
+        if (leaseTimeout.compareTo(heartbeatInterval.multipliedBy(3)) < 0) {
+            throw new IllegalArgumentException("The ID node lease timeout must be at least 3 heartbeat intervals");
+        }
+        String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+        int firstNodeId = nodeId != null ? nodeId : 0;
+        int lastNodeId = nodeId != null ? nodeId : TimeOrderedIdGenerator.MAX_NODE_ID;
+
+        long claimedAtMillis = System.currentTimeMillis();
+        NodeLease lease = repository.claim(firstNodeId, lastNodeId, owner, leaseTimeout)
+                .orElseThrow(() -> new IllegalStateException(nodeId != null
+                        ? "ID node " + nodeId + " is leased by another running instance, give every instance its own app.ids.node-id"
+                        : "Every ID node is leased by another running instance"));
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(lease.nodeId());
+        if (generator.currentTimeMillis() <= lease.highWaterMillis()) {
+            repository.release(lease.nodeId(), owner, lease.highWaterMillis());
+            throw new IllegalStateException("The clock is behind the IDs node " + lease.nodeId()
+                    + " may already have issued (up to " + Instant.ofEpochMilli(lease.highWaterMillis())
+                    + "), refusing to generate IDs that could repeat them");
+        }
+
+        IdGeneratorNodeLease nodeLease = new IdGeneratorNodeLease(
+                repository, generator, owner, leaseTimeout, heartbeatInterval);
+        nodeLease.renewedAt(claimedAtMillis);
+        nodeLease.heartbeat();
+        if (nodeLease.heartbeats.isShutdown()) {
+            throw new IllegalStateException("ID node " + lease.nodeId() + " was taken over by another instance on startup");
+        }
+        nodeLease.heartbeats.scheduleWithFixedDelay(nodeLease::heartbeat,
+                heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Generating IDs as node {}", lease.nodeId());
+        return nodeLease;
+    }
+
+    private void heartbeat() {
+        // Ahead by two intervals, so a late heartbeat is still covered
+        long highWaterMillis = generator.highWaterMillis() + 2 * heartbeatInterval.toMillis();
+        // Taken before the renewal, so the lease is known to run at least until this time plus the timeout
+        long startedAtMillis = generator.currentTimeMillis();
+        try {
+            if (repository.heartbeat(generator.getNodeId(), owner, highWaterMillis)) {
+                renewedAt(startedAtMillis);
+            } else {
+                generator.loseLease();
+                heartbeats.shutdown();
+                log.error("The lease of ID node {} was taken over by another instance, no more IDs are generated "
+                        + "until this instance restarts", generator.getNodeId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Couldn't renew the lease of ID node {}, IDs stop being generated at {}: {}",
+                    generator.getNodeId(), Instant.ofEpochMilli(leaseDeadline()), e.getMessage());
+        }
+    }
+
+    private void renewedAt(long epochMillis) {
+        lastRenewedMillis = epochMillis;
+        generator.renewLease(leaseDeadline());
+    }
+
+    // One heartbeat interval of margin covers the clock difference with the database, which times the lease out
+    private long leaseDeadline() {
+        return lastRenewedMillis + leaseTimeout.toMillis() - heartbeatInterval.toMillis();
+    }
+
+    @Override
+    public void close() {
+        heartbeats.shutdownNow();
+        try {
+            repository.release(generator.getNodeId(), owner, generator.highWaterMillis());
+        } catch (RuntimeException e) {
+            log.warn("Couldn't release the lease of ID node {}, it expires on its own: {}",
+                    generator.getNodeId(), e.getMessage());
+        }
+    }
+}
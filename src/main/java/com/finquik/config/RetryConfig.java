@@ -0,0 +1,9 @@
+package com.finquik.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.annotation.EnableRetry;
+
+@Configuration
+@EnableRetry(order = TransactionConfig.ADVICE_ORDER - 1)
+public class RetryConfig {
+}
@@ -0,0 +1,30 @@
+package com.finquik.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Size and shape of the data generated by the seed profile, bound from {@code app.seed}.
+ * Skews are Zipf exponents: the item of rank k gets a share proportional to 1 / k^skew, 0 spreads evenly.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.seed")
+public class SeedDataProperties {
+
+    private int users = 10_000;
+    private int transactions = 10_000_000;
+    // History covered by the transactions, up to the current month
+    private int months = 24;
+    private int accountsPerUser = 3;
+    // How the transactions are spread over the users
+    private double userSkew = 0.5;
+    // How the expenses of a user are spread over its categories
+    private double categorySkew = 1.0;
+    private double incomeRatio = 0.1;
+    private String emailDomain = "seed.finquik.com";
+    // Password of every generated user, hashed once
+    private String password = "seed-password";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int usersPerBatch = 500;
+    private long randomSeed = 42;
+}
@@ -0,0 +1,22 @@
+package com.finquik.config;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.convert.converter.ConverterFactory;
+
+/**
+ * Converts request parameters to enums ignoring case, so both {@code ?format=csv} and {@code ?format=CSV} are accepted.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class StringToEnumIgnoringCaseConverterFactory implements ConverterFactory<String, Enum> {
+
+    @Override
+    public <T extends Enum> Converter<String, T> getConverter(Class<T> targetType) {
+        return source -> {
+            String value = source.trim();
+            if (value.isEmpty()) {
+                return null;
+            }
+            return (T) Enum.valueOf((Class) targetType, value.toUpperCase());
+        };
+    }
+}
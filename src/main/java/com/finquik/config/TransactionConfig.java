@@ -0,0 +1,17 @@
+package com.finquik.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * Orders the transaction advice between the retry advice, so every attempt runs in a new transaction, and the
+ * cache advice, so {@code @Cacheable} keys are computed inside the method's transaction: the data version in the key
+ * is then read from the same data source (the replica of a read-only transaction) as the cached data.
+ */
+@Configuration
+@EnableTransactionManagement(order = TransactionConfig.ADVICE_ORDER)
+public class TransactionConfig {
+
+    public static final int ADVICE_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+}
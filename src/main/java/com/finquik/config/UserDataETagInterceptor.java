@@ -0,0 +1,48 @@
+package com.finquik.config;
+
+import com.finquik.security.CustomUserDetails;
+import com.finquik.services.cache.UserDataVersionTracker;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Answers conditional GETs on the user's data with a weak ETag derived from their data version (users.data_version).
+ * A request whose If-None-Match still matches gets a 304 before the controller, so only the version is read and nothing is serialized.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDataETagInterceptor implements HandlerInterceptor {
+
+    private final UserDataVersionTracker userDataVersionTracker;
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails principal)) {
+            return true;
+        }
+
+        // The version is stored with the user, so the same data has the same ETag on every instance and across restarts.
+        // It is read from the same replica as the response body, which is read after it and so is at least as recent.
+        String eTag = "W/\"" + principal.getId() + "-" + userDataVersionTracker.currentVersion(principal.getId()) + "\"";
+        // Clients may keep the response, but have to revalidate it on every use
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+
+        // Sets the ETag header, and the 304 status when If-None-Match matches
+        return !new ServletWebRequest(request, response).checkNotModified(eTag);
+    }
+}
@@ -1,18 +1,37 @@
 package com.finquik.config;
 
+import com.finquik.services.cache.RecentWriteTracker;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final UserDataETagInterceptor userDataETagInterceptor;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**") // Apply this configuration for all /api/** endpoints
                 .allowedOrigins("*")   // Allow all origins
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS") // HTTP methods allowed
                 .allowedHeaders("*")
+                .exposedHeaders("ETag", RecentWriteTracker.LAST_WRITE_HEADER) // Let browser clients read and send them back
                 .allowCredentials(false);
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(userDataETagInterceptor)
+                .addPathPatterns("/api/accounts/**", "/api/categories/**", "/api/transactions/**", "/api/sync/**");
+    }
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverterFactory(new StringToEnumIgnoringCaseConverterFactory());
+    }
 }
@@ -0,0 +1,45 @@
+package com.finquik.config.datasource;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * Keeps entities loaded by read-only transactions out of the second-level cache. Those transactions read from a
+ * replica, which may lag behind the primary: an entity put in the cache from there could hide a newer version
+ * for the whole time to live. They still read from the cache; only putting is bypassed, for the duration of the
+ * transaction (the session outlives it when the request keeps it open).
+ */
+public class ReadOnlyCacheBypassJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return transactionData;
+        }
+
+        Session session = entityManager.unwrap(Session.class);
+        CacheStoreMode previousStoreMode = session.getCacheStoreMode();
+        session.setCacheStoreMode(CacheStoreMode.BYPASS);
+        return new ReadOnlyTransactionData(transactionData, session, previousStoreMode);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransactionData readOnly) {
+            readOnly.session().setCacheStoreMode(readOnly.previousStoreMode());
+            transactionData = readOnly.transactionData();
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private record ReadOnlyTransactionData(Object transactionData, Session session,
+                                           CacheStoreMode previousStoreMode) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.finquik.config.datasource;
+
+import com.finquik.services.cache.RecentWriteTracker;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions ({@code @Transactional(readOnly = true)}) to the replicas configured in
+ * {@code app.datasource.replicas}, and everything else to the primary ({@code spring.datasource}).
+ * Only active when at least one replica is configured, and sharding isn't.
+ * <p>
+ * The application data source is a {@link LazyConnectionDataSourceProxy}: it only fetches the physical
+ * connection on the first statement, once the transaction has marked it read-only, and takes it from the
+ * {@link ReplicaRoutingDataSource} in that case. Entities loaded by those transactions are kept out of the
+ * second-level cache, see {@link ReadOnlyCacheBypassJpaDialect}.
+ */
+@Configuration
+@ConditionalOnExpression("'${app.datasource.replicas[0].url:}' != '' and '${app.sharding.additional-shards[0].url:}' == ''")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryPool(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryPool,
+                                                             ReplicaDataSourceProperties properties,
+                                                             RecentWriteTracker recentWriteTracker,
+                                                             TaskScheduler taskScheduler) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaDataSourceProperties.Replica> configured = properties.getReplicas();
+        for (int i = 0; i < configured.size(); i++) {
+            replicas.put("replica-" + i, replicaPool(i, configured.get(i)));
+        }
+
+        ReplicaLagMonitor lagMonitor = new ReplicaLagMonitor(replicas, properties.getReplicaMaxLag());
+        taskScheduler.scheduleWithFixedDelay(lagMonitor::checkReplicas, properties.getReplicaLagCheckInterval());
+
+        return new ReplicaRoutingDataSource(primaryPool, replicas, lagMonitor, recentWriteTracker);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryPool, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryPool);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    /**
+     * Sets the JPA dialect before the entity manager factory initializes, which would otherwise take the default
+     * one of the vendor adapter.
+     */
+    @Bean
+    public static BeanPostProcessor readOnlyCacheBypassJpaDialect() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean entityManagerFactory) {
+                    entityManagerFactory.setJpaDialect(new ReadOnlyCacheBypassJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+
+    private HikariDataSource replicaPool(int index, ReplicaDataSourceProperties.Replica replica) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("replica-" + index);
+        pool.setJdbcUrl(replica.getUrl());
+        pool.setUsername(replica.getUsername());
+        pool.setPassword(replica.getPassword());
+        pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+        pool.setReadOnly(true);
+        return pool;
+    }
+}
@@ -0,0 +1,32 @@
+package com.finquik.config.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas of the primary database ({@code spring.datasource}), bound from {@code app.datasource}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource")
+public class ReplicaDataSourceProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    // Replicas further behind the primary than this stop receiving reads until they catch up
+    private Duration replicaMaxLag = Duration.ofSeconds(2);
+
+    // How often the lag of every replica is measured
+    private Duration replicaLagCheckInterval = Duration.ofSeconds(5);
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
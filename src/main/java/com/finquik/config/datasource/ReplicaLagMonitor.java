@@ -0,0 +1,65 @@
+package com.finquik.config.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures periodically how far behind the primary each replica is, and keeps the list of the ones
+ * within the tolerated lag. Replicas are considered lagging until their first successful check.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // Seconds since the last replayed transaction, or 0 when everything received was replayed.
+    // Also 0 on a server that isn't a standby, which lets any second local instance act as a replica.
+    private static final String LAG_SQL = """
+        SELECT CASE
+                   WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                   ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+               END
+        """;
+
+    private final Map<String, JdbcTemplate> replicas;
+    private final Duration maxLag;
+    private volatile List<String> healthyReplicas = List.of();
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas, Duration maxLag) {
+        this.replicas = new LinkedHashMap<>();
+        replicas.forEach((key, dataSource) -> this.replicas.put(key, new JdbcTemplate(dataSource)));
+        this.maxLag = maxLag;
+    }
+
+    /**
+     * @return The keys of the replicas that can currently serve reads.
+     */
+    public List<String> healthyReplicas() {
+        return healthyReplicas;
+    }
+
+    /**
+     * Measures the lag of every replica. Scheduled every {@code app.datasource.replica-lag-check-interval}.
+     */
+    public void checkReplicas() {
+        List<String> healthy = new ArrayList<>();
+        replicas.forEach((key, jdbcTemplate) -> {
+            try {
+                Double lagSeconds = jdbcTemplate.queryForObject(LAG_SQL, Double.class);
+                if (lagSeconds != null && lagSeconds * 1000 <= maxLag.toMillis()) {
+                    healthy.add(key);
+                } else {
+                    log.warn("Replica {} is {}s behind the primary, reads are routed elsewhere", key, lagSeconds);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Couldn't measure the lag of replica {}: {}", key, e.getMessage());
+            }
+        });
+        healthyReplicas = List.copyOf(healthy);
+    }
+}
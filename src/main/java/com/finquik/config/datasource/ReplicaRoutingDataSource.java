@@ -0,0 +1,81 @@
+package com.finquik.config.datasource;
+
+import com.finquik.services.cache.RecentWriteTracker;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source of read-only transactions: spreads them round-robin across the replicas within the tolerated lag.
+ * Falls back to the primary when no replica is healthy, and for clients that wrote within the read-your-writes
+ * window, since replicas may not have replayed their write yet.
+ * <p>
+ * All the read-only transactions of a request use the same replica. Replicas only move forward, so data read after
+ * the user's data version (for an ETag or a cache key) is at least as recent as that version, which wouldn't hold
+ * if the next transaction went to another replica further behind.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY_KEY = "primary";
+
+    // Request attribute of the replica picked by the first read-only transaction of the request
+    private static final String REPLICA_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".replica";
+
+    private final Map<String, DataSource> replicas;
+    private final ReplicaLagMonitor lagMonitor;
+    private final RecentWriteTracker recentWriteTracker;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    ReplicaLagMonitor lagMonitor, RecentWriteTracker recentWriteTracker) {
+        this.replicas = replicas;
+        this.lagMonitor = lagMonitor;
+        this.recentWriteTracker = recentWriteTracker;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY_KEY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (recentWriteTracker.wroteRecently()) {
+            return PRIMARY_KEY;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(REPLICA_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof String picked) {
+            // Kept even if it started lagging since, switching could go back in time within the request
+            return picked;
+        }
+
+        List<String> healthyReplicas = lagMonitor.healthyReplicas();
+        String replica = healthyReplicas.isEmpty()
+                ? PRIMARY_KEY
+                : healthyReplicas.get(Math.floorMod(nextReplica.getAndIncrement(), healthyReplicas.size()));
+        if (request != null) {
+            request.setAttribute(REPLICA_ATTRIBUTE, replica, RequestAttributes.SCOPE_REQUEST);
+        }
+        return replica;
+    }
+
+    /**
+     * Closes the replica pools, the primary one is owned by its own bean.
+     */
+    @Override
+    public void close() {
+        replicas.values().forEach(replica -> {
+            if (replica instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        });
+    }
+}
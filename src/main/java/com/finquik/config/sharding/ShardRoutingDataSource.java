@@ -0,0 +1,67 @@
+package com.finquik.config.sharding;
+
+import com.finquik.common.sharding.ShardContext;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opens each connection on the shard selected with {@link ShardContext}, which requests of authenticated users
+ * get from {@link UserShardFilter}. Only the startup (migrations, schema validation, runners) may use the data
+ * source without a shard, and goes to the directory shard; once the application is ready, connections without a
+ * shard are rejected rather than silently opened on shard 0, where the user data may not be.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource
+        implements ApplicationListener<ApplicationReadyEvent>, AutoCloseable {
+
+    private final List<DataSource> shards;
+    private volatile boolean ready;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = shards;
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(ShardContext.DIRECTORY_SHARD));
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        ready = true;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.currentShard();
+        if (shard != null) {
+            return shard;
+        }
+        if (!ready) {
+            return ShardContext.DIRECTORY_SHARD;
+        }
+        throw new IllegalStateException("No shard selected for this connection, "
+                + "work outside of a user's request must select one with ShardContext");
+    }
+
+    /**
+     * Closes the pools of the additional shards, the one of shard 0 is owned by its own bean.
+     */
+    @Override
+    public void close() {
+        shards.stream().skip(1).forEach(shard -> {
+            if (shard instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package com.finquik.config.sharding;
+
+import com.finquik.common.sharding.ShardContext;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads user data across the primary database (shard 0) and the databases in {@code app.sharding.additional-shards}.
+ * Only active when at least one additional shard is configured, and not combined with read replicas.
+ * <p>
+ * Every shard has its own connection pool behind a single {@link ShardRoutingDataSource}, so the one JPA
+ * transaction manager binds each transaction to a connection of the shard it started on. Every repository
+ * query is scoped to one user, so a transaction never needs data from two shards.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.additional-shards[0].url")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryPool(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(HikariDataSource primaryPool, ShardingProperties properties) {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(primaryPool);
+        List<ShardingProperties.Shard> additionalShards = properties.getAdditionalShards();
+        for (int i = 0; i < additionalShards.size(); i++) {
+            shards.add(shardPool(i + 1, additionalShards.get(i)));
+        }
+        ShardContext.configureShardCount(shards.size());
+        return new ShardRoutingDataSource(shards);
+    }
+
+    /**
+     * Applies the migrations to every shard, not only to the one the application data source defaults to.
+     */
+    @Bean
+    public FlywayMigrationStrategy shardedFlywayMigrationStrategy() {
+        return flyway -> ShardContext.forEachShard(() -> Flyway.configure()
+                .configuration(flyway.getConfiguration())
+                .load()
+                .migrate());
+    }
+
+    private HikariDataSource shardPool(int shard, ShardingProperties.Shard properties) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("shard-" + shard);
+        pool.setJdbcUrl(properties.getUrl());
+        pool.setUsername(properties.getUsername());
+        pool.setPassword(properties.getPassword());
+        pool.setMaximumPoolSize(properties.getMaximumPoolSize());
+        return pool;
+    }
+}
@@ -0,0 +1,27 @@
+package com.finquik.config.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Databases that store user data besides the primary one ({@code spring.datasource}), bound from
+ * {@code app.sharding}. The primary database is shard 0 and holds the user directory, the additional
+ * shards are numbered from 1 in the order they're listed. Shards can only be appended.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    private List<Shard> additionalShards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
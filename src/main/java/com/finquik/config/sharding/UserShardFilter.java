@@ -0,0 +1,57 @@
+package com.finquik.config.sharding;
+
+import com.finquik.common.sharding.ShardContext;
+import com.finquik.repositories.UserShardDirectory;
+import com.finquik.security.CustomUserDetails;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Selects the shard of the authenticated user for the rest of the request, so it's looked up in the
+ * {@link UserShardDirectory} once per request, before any connection is opened. Requests of a user being moved
+ * to another shard are rejected with 503, since their data may be on either. Runs right after the JWT
+ * authentication, and does nothing when sharding is disabled.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserShardFilter extends OncePerRequestFilter {
+
+    private final UserShardDirectory userShardDirectory;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        Long userId = CustomUserDetails.currentUserId();
+        if (userId == null || ShardContext.shardCount() == 1) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        UserShardDirectory.Placement placement = userShardDirectory.findPlacement(userId);
+        if (placement == null) {
+            // Valid token of a user that no longer exists
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        if (placement.moving()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(userShardDirectory.cacheTtl().toSeconds()));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "The account is being moved, retry later");
+            return;
+        }
+        try (ShardContext.Selection ignored = ShardContext.select(placement.shard())) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -3,11 +3,12 @@ package com.finquik.controllers;
 import com.finquik.DTOs.AccountRequest;
 import com.finquik.DTOs.AccountResponse;
 import com.finquik.services.AccountService;
+import com.finquik.security.CustomUserDetails;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -22,27 +23,24 @@ public class AccountController {
     @PostMapping
     public ResponseEntity<AccountResponse> createAccount(
             @Valid @RequestBody AccountRequest accountRequest,
-            Authentication authentication) {
+            @AuthenticationPrincipal CustomUserDetails principal) {
 
-        String userEmail = authentication.getName();
-        AccountResponse createdAccount = accountService.createAccount(accountRequest, userEmail);
+        AccountResponse createdAccount = accountService.createAccount(accountRequest, principal.getId());
         return new ResponseEntity<>(createdAccount, HttpStatus.CREATED);
     }
 
     @GetMapping
-    public ResponseEntity<List<AccountResponse>> getUserAccounts(Authentication authentication) {
-        String userEmail = authentication.getName();
-        List<AccountResponse> accounts = accountService.getAccountsByUser(userEmail);
+    public ResponseEntity<List<AccountResponse>> getUserAccounts(@AuthenticationPrincipal CustomUserDetails principal) {
+        List<AccountResponse> accounts = accountService.getAccountsByUser(principal.getId());
         return ResponseEntity.ok(accounts);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<AccountResponse> getAccountById(
             @PathVariable Long id,
-            Authentication authentication) {
+            @AuthenticationPrincipal CustomUserDetails principal) {
 
-        String userEmail = authentication.getName();
-        AccountResponse account = accountService.getAccountById(id, userEmail);
+        AccountResponse account = accountService.getAccountById(id, principal.getId());
         return ResponseEntity.ok(account);
     }
 
@@ -50,20 +48,18 @@ public class AccountController {
     public ResponseEntity<AccountResponse> updateAccount(
             @PathVariable Long id,
             @Valid @RequestBody AccountRequest accountRequest,
-            Authentication authentication) {
+            @AuthenticationPrincipal CustomUserDetails principal) {
 
-        String userEmail = authentication.getName();
-        AccountResponse updatedAccount = accountService.updateAccount(id, accountRequest, userEmail);
+        AccountResponse updatedAccount = accountService.updateAccount(id, accountRequest, principal.getId());
         return ResponseEntity.ok(updatedAccount);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteAccount(
             @PathVariable Long id,
-            Authentication authentication) {
+            @AuthenticationPrincipal CustomUserDetails principal) {
 
-        String userEmail = authentication.getName();
-        accountService.deleteAccount(id, userEmail);
+        accountService.deleteAccount(id, principal.getId());
         return ResponseEntity.noContent().build();
     }
 }
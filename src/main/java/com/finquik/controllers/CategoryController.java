@@ -4,11 +4,12 @@ import com.finquik.DTOs.CategoryRequest;
 import com.finquik.DTOs.CategoryResponse;
 import com.finquik.models.CategoryType;
 import com.finquik.services.CategoryService;
+import com.finquik.security.CustomUserDetails;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -23,28 +24,25 @@ public class CategoryController {
     @PostMapping
     public ResponseEntity<CategoryResponse> createCategory(
             @Valid @RequestBody CategoryRequest categoryRequest,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        CategoryResponse createdCategory = categoryService.createCategory(categoryRequest, userEmail);
+            @AuthenticationPrincipal CustomUserDetails principal) {
+        CategoryResponse createdCategory = categoryService.createCategory(categoryRequest, principal.getId());
         return new ResponseEntity<>(createdCategory, HttpStatus.CREATED);
     }
 
     @GetMapping
     public ResponseEntity<List<CategoryResponse>> getUserCategories(
-            Authentication authentication,
+            @AuthenticationPrincipal CustomUserDetails principal,
             @RequestParam(required = false) CategoryType type) {
 
-        String userEmail = authentication.getName();
-        List<CategoryResponse> categories = categoryService.getCategoriesByUser(userEmail, type);
+        List<CategoryResponse> categories = categoryService.getCategoriesByUser(principal.getId(), type);
         return ResponseEntity.ok(categories);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<CategoryResponse> getCategoryById(
             @PathVariable Long id,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        CategoryResponse category = categoryService.getCategoryById(id, userEmail);
+            @AuthenticationPrincipal CustomUserDetails principal) {
+        CategoryResponse category = categoryService.getCategoryById(id, principal.getId());
         return ResponseEntity.ok(category);
     }
 
@@ -52,18 +50,16 @@ public class CategoryController {
     public ResponseEntity<CategoryResponse> updateCategory(
             @PathVariable Long id,
             @Valid @RequestBody CategoryRequest categoryRequest,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        CategoryResponse updatedCategory = categoryService.updateCategory(id, categoryRequest, userEmail);
+            @AuthenticationPrincipal CustomUserDetails principal) {
+        CategoryResponse updatedCategory = categoryService.updateCategory(id, categoryRequest, principal.getId());
         return ResponseEntity.ok(updatedCategory);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCategory(
             @PathVariable Long id,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        categoryService.deleteCategory(id, userEmail);
+            @AuthenticationPrincipal CustomUserDetails principal) {
+        categoryService.deleteCategory(id, principal.getId());
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.finquik.controllers;
+
+import com.finquik.DTOs.SyncResponse;
+import com.finquik.security.CustomUserDetails;
+import com.finquik.services.SyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+
+    @GetMapping
+    public ResponseEntity<SyncResponse> getChanges(
+            @AuthenticationPrincipal CustomUserDetails principal,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") int limit) {
+
+        SyncResponse changes = syncService.getChangesSince(principal.getId(), since, limit);
+        return ResponseEntity.ok(changes);
+    }
+}
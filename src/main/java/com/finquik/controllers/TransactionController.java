@@ -1,21 +1,39 @@
 package com.finquik.controllers;
 
+import com.finquik.DTOs.AnalyticsBucket;
+import com.finquik.DTOs.AnalyticsGroupBy;
+import com.finquik.DTOs.AnalyticsResponse;
+import com.finquik.DTOs.CursorPageResponse;
+import com.finquik.DTOs.ExportFormat;
+import com.finquik.DTOs.TransactionBatchRequest;
+import com.finquik.DTOs.TransactionBatchResponse;
+import com.finquik.DTOs.TransactionFilter;
+import com.finquik.DTOs.TransactionImportMapping;
+import com.finquik.DTOs.TransactionImportResponse;
 import com.finquik.DTOs.TransactionRequest;
 import com.finquik.DTOs.TransactionResponse;
 import com.finquik.DTOs.TransactionSummaryDTO;
 import com.finquik.DTOs.PageResponse;
-import com.finquik.models.CategoryType;
+import com.finquik.security.CustomUserDetails;
+import com.finquik.services.TransactionImportService;
 import com.finquik.services.TransactionService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 
 @RestController
@@ -24,44 +42,102 @@ import java.time.LocalDate;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionImportService transactionImportService;
 
     @PostMapping
     public ResponseEntity<TransactionResponse> createTransaction(
             @Valid @RequestBody TransactionRequest transactionRequest,
-            Authentication authentication) {
+            @AuthenticationPrincipal CustomUserDetails principal) {
 
-        String userEmail = authentication.getName();
-        TransactionResponse createdTransaction = transactionService.createTransaction(transactionRequest, userEmail);
+        TransactionResponse createdTransaction = transactionService.createTransaction(transactionRequest, principal.getId());
         return new ResponseEntity<>(createdTransaction, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<TransactionBatchResponse> createTransactionsBatch(
+            @Valid @RequestBody TransactionBatchRequest batchRequest,
+            @AuthenticationPrincipal CustomUserDetails principal) {
+
+        TransactionBatchResponse batchResponse = transactionService.createTransactionsBatch(batchRequest.getTransactions(), principal.getId());
+        return ResponseEntity.ok(batchResponse);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<TransactionImportResponse> importTransactions(
+            @AuthenticationPrincipal CustomUserDetails principal,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam Long accountId,
+            @Valid TransactionImportMapping mapping) throws IOException {
+
+        // The upload is parsed and loaded while it is read, it is never held in memory as a whole
+        try (InputStream inputStream = file.getInputStream()) {
+            TransactionImportResponse importResponse = transactionImportService.importTransactions(
+                    principal.getId(), accountId, mapping, inputStream);
+            return ResponseEntity.ok(importResponse);
+        }
+    }
+
     @GetMapping
     public ResponseEntity<PageResponse<TransactionResponse>> getUserTransactions(
-            Authentication authentication,
+            @AuthenticationPrincipal CustomUserDetails principal,
             Pageable pageable,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(required = false) Long accountId,
-            @RequestParam(required = false) Long categoryId,
-            @RequestParam(required = false) CategoryType type,
-            @RequestParam(required = false) String description) {
+            TransactionFilter filter) {
 
-        String userEmail = authentication.getName();
-        Page<TransactionResponse> transactionsPage = transactionService.getTransactions(
-                userEmail, pageable, startDate, endDate, accountId, categoryId, type, description);
+        Page<TransactionResponse> transactionsPage = transactionService.getTransactions(principal.getId(), pageable, filter);
 
         PageResponse<TransactionResponse> response = new PageResponse<>(transactionsPage);
 
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponse<TransactionResponse>> getUserTransactionsByCursor(
+            @AuthenticationPrincipal CustomUserDetails principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            TransactionFilter filter) {
+
+        CursorPageResponse<TransactionResponse> response = transactionService.getTransactionsByCursor(
+                principal.getId(), cursor, size, filter);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/export")
+    public void exportTransactions(
+            @AuthenticationPrincipal CustomUserDetails principal,
+            @RequestParam(defaultValue = "csv") ExportFormat format,
+            TransactionFilter filter,
+            HttpServletResponse response) throws IOException {
+
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("transactions." + format.getFileExtension())
+                .build()
+                .toString());
+
+        // Rows are written straight to the response while they are read from the database
+        transactionService.exportTransactions(principal.getId(), filter, format, response.getOutputStream());
+    }
+
+    @GetMapping("/analytics")
+    public ResponseEntity<AnalyticsResponse> getTransactionAnalytics(
+            @AuthenticationPrincipal CustomUserDetails principal,
+            @RequestParam(defaultValue = "month") AnalyticsBucket bucket,
+            @RequestParam(defaultValue = "category") AnalyticsGroupBy groupBy,
+            TransactionFilter filter) {
+
+        AnalyticsResponse analytics = transactionService.getAnalytics(principal.getId(), bucket, groupBy, filter);
+        return ResponseEntity.ok(analytics);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TransactionResponse> getTransactionById(
             @PathVariable Long id,
-            Authentication authentication) {
+            @AuthenticationPrincipal CustomUserDetails principal) {
 
-        String userEmail = authentication.getName();
-        TransactionResponse transaction = transactionService.getTransactionById(id, userEmail);
+        TransactionResponse transaction = transactionService.getTransactionById(id, principal.getId());
         return ResponseEntity.ok(transaction);
     }
 
@@ -69,26 +145,27 @@ public class TransactionController {
     public ResponseEntity<TransactionResponse> updateTransaction(
             @PathVariable Long id,
             @Valid @RequestBody TransactionRequest transactionRequest,
-            Authentication authentication) {
+            @AuthenticationPrincipal CustomUserDetails principal) {
 
-        String userEmail = authentication.getName();
-        TransactionResponse updatedTransaction = transactionService.updateTransaction(id, transactionRequest, userEmail);
+        TransactionResponse updatedTransaction = transactionService.updateTransaction(id, transactionRequest, principal.getId());
         return ResponseEntity.ok(updatedTransaction);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTransaction(
             @PathVariable Long id,
-            Authentication authentication) {
+            @AuthenticationPrincipal CustomUserDetails principal) {
 
-        String userEmail = authentication.getName();
-        transactionService.deleteTransaction(id, userEmail);
+        transactionService.deleteTransaction(id, principal.getId());
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/summary")
-    public ResponseEntity<TransactionSummaryDTO> getTransactionSummary() {
-        TransactionSummaryDTO summary = transactionService.getTransactionSummaryForCurrentUser();
+    public ResponseEntity<TransactionSummaryDTO> getTransactionSummary(
+            @AuthenticationPrincipal CustomUserDetails principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        TransactionSummaryDTO summary = transactionService.getTransactionSummary(principal.getId(), startDate, endDate);
         return ResponseEntity.ok(summary);
     }
 }
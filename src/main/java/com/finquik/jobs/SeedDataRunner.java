@@ -0,0 +1,31 @@
+package com.finquik.jobs;
+
+import com.finquik.config.SeedDataProperties;
+import com.finquik.services.SeedDataService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates test data on startup with the seed profile, e.g.
+ * {@code --spring.profiles.active=seed --app.seed.users=20000 --app.seed.transactions=10000000}
+ * (see {@link SeedDataProperties} for every option). The profile runs no web server nor scheduled jobs, so the
+ * application stops on its own once the data is generated, closing its context through the shutdown hook.
+ */
+@Component
+@Profile("seed")
+@RequiredArgsConstructor
+@EnableConfigurationProperties(SeedDataProperties.class)
+public class SeedDataRunner implements ApplicationRunner {
+
+    private final SeedDataService seedDataService;
+    private final SeedDataProperties seedDataProperties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        seedDataService.seed(seedDataProperties);
+    }
+}
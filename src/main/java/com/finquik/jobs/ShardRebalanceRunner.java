@@ -0,0 +1,42 @@
+package com.finquik.jobs;
+
+import com.finquik.services.ShardRebalancingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rebalancing tool, driven by command line options:
+ * {@code --move-user=<user id> --to-shard=<shard>} moves a user to another shard (both options can be repeated,
+ * pairing them in order), and {@code --shard-stats} logs the number of users of every shard.
+ * Users are moved one by one, so a new shard can be filled gradually while the application keeps serving.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShardRebalanceRunner implements ApplicationRunner {
+
+    private final ShardRebalancingService shardRebalancingService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> userIds = args.getOptionValues("move-user");
+        List<String> targetShards = args.getOptionValues("to-shard");
+        if (userIds != null) {
+            if (targetShards == null || targetShards.size() != userIds.size()) {
+                throw new IllegalArgumentException("Every --move-user needs a matching --to-shard");
+            }
+            for (int i = 0; i < userIds.size(); i++) {
+                shardRebalancingService.moveUser(Long.parseLong(userIds.get(i)), Integer.parseInt(targetShards.get(i)));
+            }
+        }
+
+        if (args.containsOption("shard-stats")) {
+            log.info("Users per shard: {}", shardRebalancingService.countUsersByShard());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.finquik.jobs;
+
+import com.finquik.common.sharding.ShardContext;
+import com.finquik.services.SyncService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Deletes the tombstones older than {@code app.sync.tombstone-retention} on the {@code app.sync.tombstone-purge-cron}
+ * schedule, on every shard. Clients that haven't synced for longer than the retention download everything again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SyncTombstonePurgeJob {
+
+    private final SyncService syncService;
+
+    @Value("${app.sync.tombstone-retention:90d}")
+    private Duration retention;
+
+    @Scheduled(cron = "${app.sync.tombstone-purge-cron:0 30 3 * * *}")
+    public void purgeTombstones() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        ShardContext.forEachShard(() -> {
+            long purged = syncService.purgeTombstones(before);
+            log.info("Purged {} tombstones recorded before {} on shard {}", purged, before, ShardContext.currentShard());
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.finquik.jobs;
+
+import com.finquik.common.sharding.ShardContext;
+import com.finquik.services.TransactionPartitionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Maintains the partitions of transactions. On startup and on the {@code app.partitions.maintenance-cron} schedule
+ * it creates the partitions of the next {@code app.partitions.months-ahead} months. On the schedule only, it also
+ * moves the months older than {@code app.archive.horizon-months} into the archive (0, the default, disables it),
+ * one month at a time. Every shard is maintained in turn; a failure is logged and doesn't stop the startup,
+ * inserts of months without a partition land in the default partition until the next run creates it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionPartitionMaintenanceJob implements ApplicationRunner {
+
+    private final TransactionPartitionService transactionPartitionService;
+
+    @Value("${app.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.archive.horizon-months:0}")
+    private int archiveHorizonMonths;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        createFuturePartitions();
+    }
+
+    @Scheduled(cron = "${app.partitions.maintenance-cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        createFuturePartitions();
+        if (archiveHorizonMonths > 0) {
+            YearMonth firstHotMonth = YearMonth.now().minusMonths(archiveHorizonMonths);
+            ShardContext.forEachShard(() -> {
+                for (YearMonth month : transactionPartitionService.findPartitionsToArchive(firstHotMonth)) {
+                    // Another instance is archiving the same months
+                    if (!transactionPartitionService.archivePartition(month)) {
+                        break;
+                    }
+                }
+            });
+        }
+    }
+
+    private void createFuturePartitions() {
+        YearMonth lastMonth = YearMonth.now().plusMonths(monthsAhead);
+        ShardContext.forEachShard(() -> {
+            try {
+                transactionPartitionService.createPartitionsUntil(lastMonth);
+            } catch (RuntimeException ex) {
+                log.error("Could not create the transaction partitions until {} on shard {}",
+                        lastMonth, ShardContext.currentShard(), ex);
+            }
+        });
+    }
+}
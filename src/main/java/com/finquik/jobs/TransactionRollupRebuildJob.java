@@ -0,0 +1,38 @@
+package com.finquik.jobs;
+
+import com.finquik.common.sharding.ShardContext;
+import com.finquik.services.TransactionRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the transaction rollups from scratch. Rollups are maintained incrementally on every write,
+ * so this is only needed to initialize them or to repair them after data was changed outside the application.
+ * It runs on startup when {@code app.rollups.rebuild-on-startup=true} and on the {@code app.rollups.rebuild-cron}
+ * schedule when one is configured, on every shard.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionRollupRebuildJob implements ApplicationRunner {
+
+    private final TransactionRollupService transactionRollupService;
+
+    @Value("${app.rollups.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (rebuildOnStartup) {
+            rebuildAll();
+        }
+    }
+
+    @Scheduled(cron = "${app.rollups.rebuild-cron:-}")
+    public void rebuildAll() {
+        ShardContext.forEachShard(transactionRollupService::rebuildAll);
+    }
+}
@@ -1,10 +1,14 @@
 package com.finquik.models;
 
+import com.finquik.common.ids.TimeOrderedId;
+import com.finquik.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -20,11 +24,13 @@ import java.util.Objects;
 @AllArgsConstructor
 @Builder
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.ACCOUNT_REGION)
 @Table(name = "accounts")
 public class Account {
 
+    // Generated in the application, so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -41,12 +47,17 @@ public class Account {
     @Column(nullable = false, precision = 19, scale = 4)
     private BigDecimal initialBalance;
 
-    @Column(nullable = false, precision = 19, scale = 4)
+    // Only changed through atomic deltas (AccountRepository#applyBalanceDelta), never written by entity updates
+    @Column(nullable = false, precision = 19, scale = 4, updatable = false)
     private BigDecimal currentBalance;
 
     @Column(nullable = false, length = 10)
     private String currency;
 
+    // Optimistic lock, checked on every entity update
+    @Version
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -55,6 +66,13 @@ public class Account {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Set by the database on every insert and update (V10__sync_change_sequence.sql), only read by the delta sync
+    @Column(name = "change_xid", insertable = false, updatable = false)
+    private Long changeXid;
+
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
 
     @Override
     public boolean equals(Object o) {
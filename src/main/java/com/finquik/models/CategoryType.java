@@ -1,9 +1,18 @@
 package com.finquik.models;
 
+import java.math.BigDecimal;
+
 /**
  * Represents the type of a Category, either for income or for expenses.
  */
 public enum CategoryType {
     INCOME,
-    EXPENSE
+    EXPENSE;
+
+    /**
+     * Returns the amount with the sign it has on an account balance: positive for income, negative for expenses.
+     */
+    public BigDecimal signedAmount(BigDecimal amount) {
+        return this == INCOME ? amount : amount.negate();
+    }
 }
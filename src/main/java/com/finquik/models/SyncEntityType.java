@@ -0,0 +1,10 @@
+package com.finquik.models;
+
+/**
+ * Kinds of user data exchanged by the delta sync endpoint.
+ */
+public enum SyncEntityType {
+    ACCOUNT,
+    CATEGORY,
+    TRANSACTION
+}
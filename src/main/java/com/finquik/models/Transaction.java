@@ -1,5 +1,7 @@
 package com.finquik.models;
 
+import com.finquik.common.utils.SearchTextNormalizer;
+import com.finquik.common.ids.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -24,8 +26,9 @@ import java.util.Objects;
 @Table(name = "transactions")
 public class Transaction {
 
+    // Generated in the application, so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(nullable = false, precision = 19, scale = 4)
@@ -34,6 +37,10 @@ public class Transaction {
     @Column(length = 255)
     private String description;
 
+    // Lower-cased and accent-free copy of the description, indexed for searching
+    @Column(name = "description_search", length = 255)
+    private String descriptionSearch;
+
     @Column(name = "icon_name", length = 100)
     private String iconName;
 
@@ -55,6 +62,10 @@ public class Transaction {
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
+    // Optimistic lock, checked on every entity update
+    @Version
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -63,6 +74,19 @@ public class Transaction {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Delta sync position, assigned by the database like for accounts and categories
+    @Column(name = "change_xid", insertable = false, updatable = false)
+    private Long changeXid;
+
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
+    @PrePersist
+    @PreUpdate
+    private void normalizeDescription() {
+        this.descriptionSearch = SearchTextNormalizer.normalize(description);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
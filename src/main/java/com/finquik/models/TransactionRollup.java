@@ -0,0 +1,38 @@
+package com.finquik.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Pre-aggregated income and expense totals of the transactions of a user, per account, category and month.
+ * Kept up to date in the same database transaction as every transaction write, so summaries can be computed
+ * from a handful of rollup rows instead of scanning the whole transaction history.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "transaction_rollups")
+public class TransactionRollup {
+
+    @EmbeddedId
+    private TransactionRollupId id;
+
+    @Column(name = "income_total", nullable = false, precision = 19, scale = 4)
+    private BigDecimal incomeTotal;
+
+    @Column(name = "expense_total", nullable = false, precision = 19, scale = 4)
+    private BigDecimal expenseTotal;
+
+    @Column(name = "income_count", nullable = false)
+    private long incomeCount;
+
+    @Column(name = "expense_count", nullable = false)
+    private long expenseCount;
+}
@@ -1,5 +1,6 @@
 package com.finquik.models;
 
+import com.finquik.common.ids.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,8 +23,9 @@ import java.util.Objects;
 @Table(name = "users")
 public class User {
 
+    // Generated in the application, so IDs are unique across shards
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(name = "first_name")
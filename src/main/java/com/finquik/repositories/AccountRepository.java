@@ -1,10 +1,13 @@
 package com.finquik.repositories;
 
 import com.finquik.models.Account;
-import com.finquik.models.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,23 +15,66 @@ import java.util.Optional;
  * Repository interface for Account entities.
  */
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountRepositoryCustom {
 
     /**
      * Finds all accounts belonging to a specific user.
      *
-     * @param user The user whose accounts to find.
+     * @param userId The ID of the user whose accounts to find.
      * @return A list of accounts for the given user.
      */
-    List<Account> findByUser(User user);
+    List<Account> findByUserId(Long userId);
 
     /**
      * Finds a specific account by its ID and the user who owns it.
      * This is useful for security checks to ensure a user is accessing their own account.
      *
      * @param id The ID of the account.
-     * @param user The user owner.
+     * @param userId The ID of the user owner.
      * @return an {@link Optional} containing the account if found and owned by the user, otherwise empty.
      */
-    Optional<Account> findByIdAndUser(Long id, User user);
+    Optional<Account> findByIdAndUserId(Long id, Long userId);
+
+    /**
+     * Same check as {@link #findByIdAndUserId(Long, Long)}, but served from the second-level cache when possible.
+     * Meant for the write paths that only reference the account; its balance may be slightly behind.
+     *
+     * @param id The ID of the account.
+     * @param userId The ID of the user owner.
+     * @return an {@link Optional} containing the account if found and owned by the user, otherwise empty.
+     */
+    default Optional<Account> findCachedByIdAndUserId(Long id, Long userId) {
+        return findById(id).filter(account -> account.getUser().getId().equals(userId));
+    }
+
+    /**
+     * Finds all accounts with the given IDs that belong to a specific user in a single query.
+     * IDs that don't exist or belong to another user are simply not returned.
+     *
+     * @param ids The IDs of the accounts.
+     * @param userId The ID of the user owner.
+     * @return A list with the matching accounts.
+     */
+    List<Account> findByIdInAndUserId(Collection<Long> ids, Long userId);
+
+    /**
+     * Finds the accounts of a user created or updated after a sync position, by transactions older than a horizon,
+     * in the order they changed.
+     *
+     * @param userId The ID of the user owner.
+     * @param xid The transaction ID of the last change already synced.
+     * @param seq The sequence number of the last change already synced.
+     * @param horizon The transaction ID before which every transaction has ended.
+     * @param limit The maximum number of accounts to return.
+     * @return A list with the matching accounts.
+     */
+    @Query("""
+        SELECT a FROM Account a
+        WHERE a.user.id = :userId
+          AND a.changeXid >= :xid AND (a.changeXid > :xid OR a.changeSeq > :seq)
+          AND a.changeXid < :horizon
+        ORDER BY a.changeXid, a.changeSeq
+    """)
+    List<Account> findChangedSince(@Param("userId") Long userId, @Param("xid") long xid, @Param("seq") long seq,
+                                   @Param("horizon") long horizon, Limit limit);
 }
@@ -0,0 +1,31 @@
+package com.finquik.repositories;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance updates of Account entities, kept out of Hibernate's bulk update handling so that they don't
+ * invalidate the whole account region of the second-level cache.
+ */
+public interface AccountRepositoryCustom {
+
+    /**
+     * Adds a (possibly negative) delta to the current balance of an account directly in the database.
+     * The update timestamp is moved too, so the new balance is picked up by delta syncs, and so is the version,
+     * so a concurrent entity update of the account (which would cache its stale balance) fails its optimistic lock.
+     * Only that account is evicted from the second-level cache.
+     *
+     * @param accountId The ID of the account to update.
+     * @param delta The amount to add to the current balance.
+     * @return The new current balance, or null if the account doesn't exist.
+     */
+    BigDecimal applyBalanceDelta(Long accountId, BigDecimal delta);
+
+    /**
+     * Evicts an account from the second-level cache now and again once the current transaction completes,
+     * for writes to its row that bypass Hibernate. The second eviction drops any copy loaded by another
+     * session before the write was committed.
+     *
+     * @param accountId The ID of the account.
+     */
+    void evictFromCache(Long accountId);
+}
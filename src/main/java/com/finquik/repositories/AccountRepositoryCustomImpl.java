@@ -0,0 +1,52 @@
+package com.finquik.repositories;
+
+import com.finquik.models.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class AccountRepositoryCustomImpl implements AccountRepositoryCustom {
+
+    // Native and run as a query (RETURNING), so Hibernate doesn't treat it as a bulk update of the accounts table
+    private static final String APPLY_BALANCE_DELTA_SQL = """
+        UPDATE accounts
+        SET current_balance = current_balance + :delta,
+            updated_at = LOCALTIMESTAMP,
+            version = version + 1
+        WHERE id = :accountId
+        RETURNING current_balance
+        """;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public BigDecimal applyBalanceDelta(Long accountId, BigDecimal delta) {
+        @SuppressWarnings("unchecked")
+        List<BigDecimal> balances = entityManager.createNativeQuery(APPLY_BALANCE_DELTA_SQL, BigDecimal.class)
+                .setParameter("delta", delta)
+                .setParameter("accountId", accountId)
+                .getResultList();
+        evictFromCache(accountId);
+        return balances.isEmpty() ? null : balances.get(0);
+    }
+
+    @Override
+    public void evictFromCache(Long accountId) {
+        EntityManagerFactory entityManagerFactory = entityManager.getEntityManagerFactory();
+        entityManagerFactory.getCache().evict(Account.class, accountId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    entityManagerFactory.getCache().evict(Account.class, accountId);
+                }
+            });
+        }
+    }
+}
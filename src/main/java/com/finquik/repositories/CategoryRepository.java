@@ -2,10 +2,13 @@ package com.finquik.repositories;
 
 import com.finquik.models.Category;
 import com.finquik.models.CategoryType;
-import com.finquik.models.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,38 +21,79 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     /**
      * Finds all categories belonging to a specific user.
      *
-     * @param user The user whose categories to find.
+     * @param userId The ID of the user whose categories to find.
      * @return A list of categories for the given user.
      */
-    List<Category> findByUser(User user);
+    List<Category> findByUserId(Long userId);
 
     /**
      * Finds a specific category by its ID and the user who owns it.
      * Useful for security checks.
      *
      * @param id The ID of the category.
-     * @param user The user owner.
+     * @param userId The ID of the user owner.
      * @return an {@link Optional} containing the category if found and owned by the user.
      */
-    Optional<Category> findByIdAndUser(Long id, User user);
+    Optional<Category> findByIdAndUserId(Long id, Long userId);
+
+    /**
+     * Same check as {@link #findByIdAndUserId(Long, Long)}, but served from the second-level cache when possible.
+     *
+     * @param id The ID of the category.
+     * @param userId The ID of the user owner.
+     * @return an {@link Optional} containing the category if found and owned by the user.
+     */
+    default Optional<Category> findCachedByIdAndUserId(Long id, Long userId) {
+        return findById(id).filter(category -> category.getUser().getId().equals(userId));
+    }
 
     /**
      * Checks if a category with the same name, type, and user already exists.
      * Useful to prevent duplicate categories for a user (e.g., two "Food" expense categories).
      *
      * @param name The name of the category.
-     * @param user The user owner.
+     * @param userId The ID of the user owner.
      * @param type The type of the category (INCOME or EXPENSE).
      * @return true if a matching category exists, false otherwise.
      */
-    boolean existsByNameAndUserAndType(String name, User user, CategoryType type);
+    boolean existsByNameAndUserIdAndType(String name, Long userId, CategoryType type);
 
     /**
      * Finds all categories belonging to a specific user and matching a specific type.
      *
-     * @param user The user whose categories to find.
+     * @param userId The ID of the user whose categories to find.
      * @param type The type of the category (INCOME or EXPENSE).
      * @return A list of categories for the given user and type.
      */
-    List<Category> findByUserAndType(User user, CategoryType type);
-}
\ No newline at end of file
+    List<Category> findByUserIdAndType(Long userId, CategoryType type);
+
+    /**
+     * Finds all categories with the given IDs that belong to a specific user in a single query.
+     *
+     * @param ids The IDs of the categories.
+     * @param userId The ID of the user owner.
+     * @return A list with the matching categories.
+     */
+    List<Category> findByIdInAndUserId(Collection<Long> ids, Long userId);
+
+    /**
+     * Finds the categories of a user created or updated after a sync position, by transactions older than a horizon,
+     * in the order they changed.
+     *
+     * @param userId The ID of the user owner.
+     * @param xid The transaction ID of the last change already synced.
+     * @param seq The sequence number of the last change already synced.
+     * @param horizon The transaction ID before which every transaction has ended.
+     * @param limit The maximum number of categories to return.
+     * @return A list with the matching categories.
+     */
+    @Query("""
+        SELECT c FROM Category c
+        WHERE c.user.id = :userId
+          AND c.changeXid >= :xid AND (c.changeXid > :xid OR c.changeSeq > :seq)
+          AND c.changeXid < :horizon
+        ORDER BY c.changeXid, c.changeSeq
+    """)
+    List<Category> findChangedSince(@Param("userId") Long userId, @Param("xid") long xid, @Param("seq") long seq,
+                                    @Param("horizon") long horizon, Limit limit);
+}
@@ -0,0 +1,38 @@
+package com.finquik.repositories;
+
+import com.finquik.models.DeletedRecord;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for the tombstones of deleted accounts, categories and transactions.
+ */
+@Repository
+public interface DeletedRecordRepository extends JpaRepository<DeletedRecord, Long> {
+
+    /**
+     * Finds the tombstones of a user recorded after a sync position, by transactions older than a horizon,
+     * in the order they changed.
+     *
+     * @param userId The ID of the user owner.
+     * @param xid The transaction ID of the last change already synced.
+     * @param seq The sequence number of the last change already synced.
+     * @param horizon The transaction ID before which every transaction has ended.
+     * @param limit The maximum number of tombstones to return.
+     * @return A list with the matching tombstones.
+     */
+    @Query("""
+        SELECT r FROM DeletedRecord r
+        WHERE r.userId = :userId
+          AND r.changeXid >= :xid AND (r.changeXid > :xid OR r.changeSeq > :seq)
+          AND r.changeXid < :horizon
+        ORDER BY r.changeXid, r.changeSeq
+    """)
+    List<DeletedRecord> findChangedSince(@Param("userId") Long userId, @Param("xid") long xid, @Param("seq") long seq,
+                                         @Param("horizon") long horizon, Limit limit);
+}
@@ -0,0 +1,94 @@
+package com.finquik.repositories;
+
+import com.finquik.common.sharding.ShardContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Leases of the node IDs of TimeOrderedIdGenerator (table id_generator_nodes of the directory shard). A lease is
+ * held while its owner keeps sending heartbeats, and can be taken over once they stop for longer than the timeout.
+ */
+@Repository
+public class IdGeneratorNodeRepository {
+
+    // The lowest free node of the range; SKIP LOCKED lets instances starting together claim different ones
+    private static final String CLAIM_SQL = """
+        UPDATE id_generator_nodes
+        SET owner = ?, heartbeat_at = now()
+        WHERE node_id = (
+            SELECT node_id
+            FROM id_generator_nodes
+            WHERE node_id BETWEEN ? AND ?
+              AND (owner IS NULL OR heartbeat_at < now() - make_interval(secs => ?))
+            ORDER BY node_id
+            LIMIT 1
+            FOR UPDATE SKIP LOCKED)
+        RETURNING node_id, high_water_millis
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdGeneratorNodeRepository(DataSource dataSource) {
+        // Wrapped so the statements never join the transaction of the caller, each one commits on its own
+        this.jdbcTemplate = new JdbcTemplate(new DelegatingDataSource(dataSource));
+    }
+
+    /**
+     * Takes the lease of the lowest node ID of a range that no other owner holds.
+     *
+     * @param firstNodeId  The lowest node ID that can be leased.
+     * @param lastNodeId   The highest node ID that can be leased.
+     * @param owner        A name of the current instance, unique among the running ones.
+     * @param leaseTimeout How long an owner keeps the lease without heartbeats.
+     * @return The leased node, or empty if every node of the range is leased by another owner.
+     */
+    public Optional<NodeLease> claim(int firstNodeId, int lastNodeId, String owner, Duration leaseTimeout) {
+        return inDirectory(() -> {
+            jdbcTemplate.update("INSERT INTO id_generator_nodes (node_id) SELECT generate_series(?, ?) ON CONFLICT DO NOTHING",
+                    firstNodeId, lastNodeId);
+            return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new NodeLease(rs.getInt("node_id"), rs.getLong("high_water_millis")),
+                    owner, firstNodeId, lastNodeId, leaseTimeout.toMillis() / 1000.0).stream().findFirst();
+        });
+    }
+
+    /**
+     * Renews the lease of a node ID and raises its high-water mark.
+     *
+     * @return Whether the lease is still held by the owner.
+     */
+    public boolean heartbeat(int nodeId, String owner, long highWaterMillis) {
+        return inDirectory(() -> jdbcTemplate.update("""
+                UPDATE id_generator_nodes
+                SET heartbeat_at = now(), high_water_millis = GREATEST(high_water_millis, ?)
+                WHERE node_id = ? AND owner = ?
+                """, highWaterMillis, nodeId, owner)) == 1;
+    }
+
+    /**
+     * Gives up the lease of a node ID, recording the exact high-water mark reached by its owner.
+     */
+    public void release(int nodeId, String owner, long highWaterMillis) {
+        inDirectory(() -> jdbcTemplate.update("""
+                UPDATE id_generator_nodes
+                SET owner = NULL, heartbeat_at = NULL, high_water_millis = ?
+                WHERE node_id = ? AND owner = ?
+                """, highWaterMillis, nodeId, owner));
+    }
+
+    /**
+     * @param nodeId          The leased node ID.
+     * @param highWaterMillis The latest timestamp (epoch millis) the node may have put in an ID.
+     */
+    public record NodeLease(int nodeId, long highWaterMillis) {
+    }
+
+    private static <T> T inDirectory(Supplier<T> action) {
+        return ShardContext.callInShard(ShardContext.DIRECTORY_SHARD, action);
+    }
+}
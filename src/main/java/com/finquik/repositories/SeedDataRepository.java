@@ -0,0 +1,176 @@
+package com.finquik.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Bulk loading of generated data: rows are streamed with the PostgreSQL COPY protocol. The COPYs of a batch share
+ * one connection (of the shard selected in the current thread) and are committed together, so a failed batch
+ * leaves nothing behind.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SeedDataRepository {
+
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+
+    private static final String UPDATE_BALANCES_SQL = """
+        UPDATE accounts a
+        SET current_balance = a.initial_balance + d.delta,
+            version = a.version + 1
+        FROM (
+            SELECT t.account_id, SUM(CASE WHEN c.type = 'INCOME' THEN t.amount ELSE -t.amount END) AS delta
+            FROM transactions t
+            JOIN categories c ON c.id = t.category_id
+            GROUP BY t.account_id
+        ) d
+        WHERE a.id = d.account_id
+          AND a.current_balance <> a.initial_balance + d.delta
+        """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Starts a batch of COPYs on a new connection, in one transaction.
+     *
+     * @return The batch, closing it without {@link CopyBatch#commit()} rolls back everything it loaded.
+     */
+    public CopyBatch openBatch() {
+        try {
+            Connection connection = dataSource.getConnection();
+            try {
+                connection.setAutoCommit(false);
+                return new CopyBatch(connection);
+            } catch (SQLException ex) {
+                connection.close();
+                throw ex;
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not open a connection to load the seed data", ex);
+        }
+    }
+
+    /**
+     * Sets the current balance of every account to its initial balance plus its transactions, in one statement.
+     *
+     * @return The number of accounts whose balance changed.
+     */
+    public int updateBalancesFromTransactions() {
+        return jdbcTemplate.update(UPDATE_BALANCES_SQL);
+    }
+
+    /**
+     * Refreshes the planner statistics, which are far off after a bulk load.
+     */
+    public void analyze() {
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    /**
+     * COPYs sharing one connection and transaction. Only one of them can be written at a time.
+     */
+    public static class CopyBatch implements AutoCloseable {
+
+        private final Connection connection;
+        private boolean committed;
+
+        private CopyBatch(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Starts a COPY into a table.
+         *
+         * @param table   The table to load.
+         * @param columns The columns of every row, in the order they're written.
+         * @return A writer of rows, closing it ends the COPY.
+         */
+        public CopyWriter copy(String table, String columns) {
+            String sql = "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)";
+            try {
+                return new CopyWriter(new BufferedWriter(new OutputStreamWriter(
+                        new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, COPY_BUFFER_SIZE),
+                        StandardCharsets.UTF_8)));
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Could not start the COPY into " + table, ex);
+            }
+        }
+
+        public void commit() {
+            try {
+                connection.commit();
+                committed = true;
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Could not commit the seed data", ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            try (connection) {
+                if (!committed) {
+                    connection.rollback();
+                }
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Could not release the seed data connection", ex);
+            }
+        }
+    }
+
+    /**
+     * Writes rows in the CSV format expected by COPY: null values are left empty, text is quoted.
+     */
+    public static class CopyWriter implements AutoCloseable {
+
+        private final Writer writer;
+        private final StringBuilder line = new StringBuilder(256);
+
+        private CopyWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        public void row(Object... values) {
+            line.setLength(0);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                Object value = values[i];
+                if (value instanceof CharSequence text) {
+                    line.append('"').append(text.toString().replace("\"", "\"\"")).append('"');
+                } else if (value != null) {
+                    line.append(value);
+                }
+            }
+            line.append('\n');
+            try {
+                writer.append(line);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
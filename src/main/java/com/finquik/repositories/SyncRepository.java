@@ -0,0 +1,53 @@
+package com.finquik.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Positions of the delta sync, which are IDs of database transactions (see V10__sync_change_sequence.sql), and
+ * the purge of old tombstones.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SyncRepository {
+
+    private static final String PURGE_TOMBSTONES_SQL = """
+        WITH purged AS (
+            DELETE FROM deleted_records WHERE deleted_at < ? RETURNING change_xid
+        ), horizon AS (
+            UPDATE sync_state
+            SET tombstones_purged_before = GREATEST(tombstones_purged_before, (SELECT max(change_xid) + 1 FROM purged))
+        )
+        SELECT count(*) FROM purged
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return The ID of the oldest transaction still running: every transaction below it has ended, so its changes
+     * are visible to the statements that run from now on, and no change with a lower ID can appear anymore.
+     */
+    public long currentHorizon() {
+        return jdbcTemplate.queryForObject("SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+    }
+
+    /**
+     * @return The transaction ID below which tombstones may have been purged.
+     */
+    public long tombstonesPurgedBefore() {
+        return jdbcTemplate.queryForObject("SELECT tombstones_purged_before FROM sync_state", Long.class);
+    }
+
+    /**
+     * Deletes the tombstones recorded before an instant, and moves the purge horizon past them.
+     *
+     * @param before The instant before which tombstones are deleted.
+     * @return The number of deleted tombstones.
+     */
+    public long purgeTombstones(LocalDateTime before) {
+        return jdbcTemplate.queryForObject(PURGE_TOMBSTONES_SQL, Long.class, before);
+    }
+}
@@ -0,0 +1,175 @@
+package com.finquik.repositories;
+
+import com.finquik.common.ids.TimeOrderedIdGenerator;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Bulk loading of imported transactions: rows are streamed with the PostgreSQL COPY protocol into a temporary
+ * staging table, and then merged into transactions, account balances and rollups with a few set-based statements.
+ * Must be used inside a transaction, the staging table is dropped when it commits.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionImportRepository {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CREATE_STAGING_SQL = """
+        CREATE TEMPORARY TABLE transaction_import_staging (
+            id                 bigint        NOT NULL,
+            line_number        bigint        NOT NULL,
+            category_id        bigint        NOT NULL,
+            amount             numeric(19,4) NOT NULL,
+            description        varchar(255),
+            description_search varchar(255),
+            transaction_date   date          NOT NULL
+        ) ON COMMIT DROP
+        """;
+
+    private static final String COPY_SQL = """
+        COPY transaction_import_staging (id, line_number, category_id, amount, description, description_search, transaction_date)
+        FROM STDIN WITH (FORMAT csv)
+        """;
+
+    private static final String INSERT_TRANSACTIONS_SQL = """
+        INSERT INTO transactions (id, amount, description, description_search, icon_name, transaction_date,
+                                  user_id, account_id, category_id, created_at, updated_at, version)
+        SELECT s.id, s.amount, s.description, s.description_search, c.icon_name, s.transaction_date,
+               ?, ?, s.category_id, ?, ?, 0
+        FROM transaction_import_staging s
+        JOIN categories c ON c.id = s.category_id
+        """;
+
+    private static final String APPLY_BALANCE_SQL = """
+        UPDATE accounts a
+        SET current_balance = a.current_balance + d.delta,
+            updated_at = ?,
+            version = a.version + 1
+        FROM (
+            SELECT COALESCE(SUM(CASE WHEN c.type = 'INCOME' THEN s.amount ELSE -s.amount END), 0) AS delta
+            FROM transaction_import_staging s
+            JOIN categories c ON c.id = s.category_id
+        ) d
+        WHERE a.id = ?
+        """;
+
+    private static final String APPLY_ROLLUPS_SQL = """
+        INSERT INTO transaction_rollups (user_id, account_id, category_id, month_start,
+                                         income_total, expense_total, income_count, expense_count)
+        SELECT ?, ?, s.category_id, CAST(date_trunc('month', s.transaction_date) AS date),
+               COALESCE(SUM(s.amount) FILTER (WHERE c.type = 'INCOME'), 0),
+               COALESCE(SUM(s.amount) FILTER (WHERE c.type = 'EXPENSE'), 0),
+               COUNT(*) FILTER (WHERE c.type = 'INCOME'),
+               COUNT(*) FILTER (WHERE c.type = 'EXPENSE')
+        FROM transaction_import_staging s
+        JOIN categories c ON c.id = s.category_id
+        GROUP BY s.category_id, date_trunc('month', s.transaction_date)
+        ON CONFLICT (user_id, account_id, category_id, month_start) DO UPDATE SET
+            income_total = transaction_rollups.income_total + EXCLUDED.income_total,
+            expense_total = transaction_rollups.expense_total + EXCLUDED.expense_total,
+            income_count = transaction_rollups.income_count + EXCLUDED.income_count,
+            expense_count = transaction_rollups.expense_count + EXCLUDED.expense_count
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TimeOrderedIdGenerator idGenerator;
+
+    /**
+     * Creates the staging table and starts a COPY into it on the connection of the current transaction.
+     * No other statement can run on that connection until the returned writer is closed.
+     *
+     * @return A writer that streams rows into the staging table.
+     */
+    public StagingWriter openStaging() {
+        jdbcTemplate.execute(CREATE_STAGING_SQL);
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            return new StagingWriter(new BufferedWriter(new OutputStreamWriter(
+                    new PGCopyOutputStream(pgConnection, COPY_SQL, COPY_BUFFER_SIZE), StandardCharsets.UTF_8)), idGenerator);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not start the COPY into the import staging table", ex);
+        }
+    }
+
+    /**
+     * Inserts the staged rows into the transactions of a user and account, with the IDs generated while staging them.
+     *
+     * @return The number of inserted transactions.
+     */
+    public int insertStagedTransactions(Long userId, Long accountId) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update(INSERT_TRANSACTIONS_SQL, userId, accountId, now, now);
+    }
+
+    /**
+     * Adds the signed sum of the staged rows to the current balance of the account in one statement.
+     */
+    public void applyStagedBalanceDelta(Long accountId) {
+        jdbcTemplate.update(APPLY_BALANCE_SQL, LocalDateTime.now(), accountId);
+    }
+
+    /**
+     * Adds the staged rows to the monthly rollups, with one upsert per category and month.
+     */
+    public void applyStagedRollups(Long userId, Long accountId) {
+        jdbcTemplate.update(APPLY_ROLLUPS_SQL, userId, accountId);
+    }
+
+    /**
+     * Writes rows into the staging table in the CSV format expected by COPY. Closing it ends the COPY.
+     */
+    public static class StagingWriter implements AutoCloseable {
+
+        private final Writer writer;
+        private final TimeOrderedIdGenerator idGenerator;
+
+        private StagingWriter(Writer writer, TimeOrderedIdGenerator idGenerator) {
+            this.writer = writer;
+            this.idGenerator = idGenerator;
+        }
+
+        public void write(long lineNumber, Long categoryId, BigDecimal amount, String description,
+                          String descriptionSearch, LocalDate transactionDate) {
+            try {
+                writer.write(idGenerator.nextId() + "," + lineNumber + "," + categoryId + "," + amount.toPlainString() + ","
+                        + copyText(description) + "," + copyText(descriptionSearch) + "," + transactionDate + "\n");
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        // Text is always quoted, an unquoted empty value is how COPY's CSV format spells NULL
+        private static String copyText(String value) {
+            return value == null ? "" : '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
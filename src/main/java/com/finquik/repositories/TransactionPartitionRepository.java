@@ -0,0 +1,249 @@
+package com.finquik.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL of the partitions of transactions (see V3__partition_transactions.sql and V4__transactions_archive.sql).
+ * Recent months have their own partitions, named {@code transactions_pYYYY_MM}. Months archived since then are
+ * merged into one partition per year, {@code transactions_yYYYY}, and everything older than both is stored in
+ * {@code transactions_archive}, which stays attached and never changes range.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionPartitionRepository {
+
+    private static final String PARTITION_PREFIX = "transactions_p";
+    private static final String ARCHIVED_YEAR_PREFIX = "transactions_y";
+    private static final String DEFAULT_PARTITION = "transactions_default";
+    private static final DateTimeFormatter NAME_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_p(\\d{4})_(\\d{2})");
+    private static final Pattern LOWER_BOUND = Pattern.compile("FROM \\('(\\d{4}-\\d{2}-\\d{2})'\\)");
+    // Parent index definitions are "CREATE [UNIQUE] INDEX name ON ONLY public.transactions USING ..."
+    private static final Pattern INDEX_TARGET = Pattern.compile("^CREATE (UNIQUE )?INDEX \\S+ ON ONLY \\S+ ");
+    private static final String MAINTENANCE_LOCK = "transactions_partition_maintenance";
+    private static final String ARCHIVE_LOCK = "transactions_partition_archive";
+    private static final String ARCHIVE_GUARD_TRIGGER = "transactions_archiving_guard";
+    // The swap waits at most this long for the queries running on transactions, instead of queueing every new one
+    private static final String SWAP_LOCK_TIMEOUT = "5s";
+
+    private static final String FIND_PARTITIONS_SQL = """
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'transactions'::regclass
+        """;
+
+    private static final String PARTITION_BOUND_SQL = """
+        SELECT pg_get_expr(c.relpartbound, c.oid)
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'transactions'::regclass AND i.inhrelid = to_regclass(?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return The months that currently have their own partition of transactions, in ascending order.
+     */
+    public List<YearMonth> findMonthlyPartitions() {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS_SQL, String.class).stream()
+                .map(TransactionPartitionRepository::monthOf)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Waits until no other transaction is creating partitions of transactions, e.g. on another instance starting
+     * at the same time. The lock is released when the current transaction ends.
+     */
+    public void lockPartitionMaintenance() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('" + MAINTENANCE_LOCK + "'))");
+    }
+
+    /**
+     * Creates and attaches the partition of a month, unless it's already attached. Rows of that month that were
+     * stored in the default partition (because their partition didn't exist yet) are moved into it.
+     * Must be used inside a transaction, after {@link #lockPartitionMaintenance()}.
+     *
+     * @param month The month covered by the new partition.
+     * @return Whether the partition was created, false when it already existed.
+     */
+    public boolean createMonthlyPartition(YearMonth month) {
+        String partition = partitionName(month);
+        if (partitionBound(jdbcTemplate, partition) != null) {
+            return false;
+        }
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+
+        // 1. Create it detached, so moving the rows doesn't conflict with the range of the default partition
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition
+                + " (LIKE transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+
+        // 2. Move the rows of that month out of the default partition
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                + " WHERE transaction_date >= ?::date AND transaction_date < ?::date RETURNING *) "
+                + "INSERT INTO " + partition + " SELECT * FROM moved", from, to);
+
+        // 3. Attach it, which also creates the indexes and foreign keys of the parent table on it
+        jdbcTemplate.execute("ALTER TABLE transactions ATTACH PARTITION " + partition
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        return true;
+    }
+
+    /**
+     * Merges a monthly partition into the partition of its archived year, rewriting the rows of both ordered by user
+     * and date, so that the archived history of a user is stored in a few contiguous pages.
+     * <p>
+     * The ordered copy is built in a standalone table, with the range check, indexes and foreign keys it needs to be
+     * attached without being scanned again, while writes to the rows being copied are rejected. It's then swapped
+     * in by a short transaction that only changes the catalog, so transactions is never locked while rows are
+     * copied. Months must be archived from the oldest one. Must not be used inside a transaction, since it commits
+     * the copy and the swap separately.
+     *
+     * @param month      The month of the partition, the oldest one that still has its own partition.
+     * @param tablespace Optional tablespace of the archived years (e.g. on cheaper or compressed storage).
+     * @return Whether the month was archived, false when another archive is running or already archived it.
+     */
+    public boolean archiveMonthlyPartition(YearMonth month, String tablespace) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            // Every statement on the same connection, which holds the session-level archive lock
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!Boolean.TRUE.equals(session.queryForObject(
+                    "SELECT pg_try_advisory_lock(hashtext('" + ARCHIVE_LOCK + "'))", Boolean.class))) {
+                return false;
+            }
+            try {
+                return archive(session, connection, month, tablespace);
+            } finally {
+                session.execute("SELECT pg_advisory_unlock(hashtext('" + ARCHIVE_LOCK + "'))");
+            }
+        }));
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(NAME_SUFFIX_FORMAT);
+    }
+
+    private boolean archive(JdbcTemplate session, Connection connection, YearMonth month, String tablespace)
+            throws SQLException {
+        String partition = partitionName(month);
+        if (partitionBound(session, partition) == null) {
+            return false;
+        }
+        String year = ARCHIVED_YEAR_PREFIX + month.getYear();
+        String yearBound = partitionBound(session, year);
+        LocalDate from = yearBound != null ? lowerBound(yearBound) : month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        List<String> sources = yearBound != null ? List.of(year, partition) : List.of(partition);
+        String copy = year + "_copy";
+
+        boolean swapped = false;
+        try {
+            // 1. Reject writes to the rows about to be copied; waits for the ones in progress
+            for (String source : sources) {
+                session.execute("CREATE TRIGGER " + ARCHIVE_GUARD_TRIGGER + " BEFORE INSERT OR UPDATE OR DELETE ON "
+                        + source + " FOR EACH ROW EXECUTE FUNCTION reject_archiving_writes()");
+            }
+
+            // 2. Copy them ordered into a standalone table, whose check lets it be attached without a scan
+            session.execute("DROP TABLE IF EXISTS " + copy);
+            session.execute("CREATE TABLE " + copy + " (LIKE transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS,"
+                    + " CHECK (transaction_date >= '" + from + "' AND transaction_date < '" + to + "'))"
+                    + (tablespace != null && !tablespace.isBlank() ? " TABLESPACE " + tablespace : ""));
+            session.update("INSERT INTO " + copy + " SELECT * FROM ("
+                    + String.join(" UNION ALL ", sources.stream().map(source -> "SELECT * FROM " + source).toList())
+                    + ") archived ORDER BY user_id, transaction_date, id");
+
+            // 3. Build the constraints and indexes of transactions on it, so attaching it only has to link them
+            addParentConstraintsAndIndexes(session, copy);
+
+            // 4. Swap it in, holding the lock on transactions only for catalog changes
+            connection.setAutoCommit(false);
+            try {
+                session.execute("SET LOCAL lock_timeout = '" + SWAP_LOCK_TIMEOUT + "'");
+                for (String source : sources) {
+                    session.execute("ALTER TABLE transactions DETACH PARTITION " + source);
+                }
+                session.execute("ALTER TABLE transactions ATTACH PARTITION " + copy
+                        + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+                for (String source : sources) {
+                    session.execute("DROP TABLE " + source);
+                }
+                session.execute("ALTER TABLE " + copy + " RENAME TO " + year);
+                connection.commit();
+                swapped = true;
+            } catch (RuntimeException | SQLException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } finally {
+            // After a failure the month stays where it was, and accepts writes again
+            if (!swapped) {
+                for (String source : sources) {
+                    session.execute("DROP TRIGGER IF EXISTS " + ARCHIVE_GUARD_TRIGGER + " ON " + source);
+                }
+            }
+        }
+    }
+
+    // The primary key, then the other indexes, then the foreign keys, validated without blocking writes to the referenced tables
+    private void addParentConstraintsAndIndexes(JdbcTemplate session, String table) {
+        session.queryForList("SELECT pg_get_constraintdef(oid) FROM pg_constraint "
+                + "WHERE conrelid = 'transactions'::regclass AND contype = 'p'", String.class)
+                .forEach(primaryKey -> session.execute("ALTER TABLE " + table + " ADD " + primaryKey));
+
+        session.queryForList("SELECT pg_get_indexdef(indexrelid) FROM pg_index "
+                + "WHERE indrelid = 'transactions'::regclass AND NOT indisprimary", String.class)
+                .forEach(index -> session.execute(INDEX_TARGET.matcher(index)
+                        .replaceFirst("CREATE $1INDEX ON " + table + " ")));
+
+        List<Map<String, Object>> foreignKeys = session.queryForList("SELECT conname, pg_get_constraintdef(oid) AS definition "
+                + "FROM pg_constraint WHERE conrelid = 'transactions'::regclass AND contype = 'f'");
+        foreignKeys.forEach(foreignKey -> session.execute("ALTER TABLE " + table + " ADD CONSTRAINT "
+                + foreignKey.get("conname") + " " + foreignKey.get("definition") + " NOT VALID"));
+        foreignKeys.forEach(foreignKey -> session.execute("ALTER TABLE " + table + " VALIDATE CONSTRAINT "
+                + foreignKey.get("conname")));
+    }
+
+    // The bound of a partition of transactions, e.g. "FOR VALUES FROM ('2024-01-01') TO ('2024-02-01')", or null
+    private static String partitionBound(JdbcTemplate jdbc, String partition) {
+        List<String> bounds = jdbc.queryForList(PARTITION_BOUND_SQL, String.class, partition);
+        return bounds.isEmpty() ? null : bounds.get(0);
+    }
+
+    private static LocalDate lowerBound(String bound) {
+        Matcher matcher = LOWER_BOUND.matcher(bound);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected partition bound: " + bound);
+        }
+        return LocalDate.parse(matcher.group(1));
+    }
+
+    private static YearMonth monthOf(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+}
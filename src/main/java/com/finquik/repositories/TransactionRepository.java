@@ -3,13 +3,18 @@ package com.finquik.repositories;
 import com.finquik.DTOs.TransactionSummaryDTO;
 import com.finquik.models.Account;
 import com.finquik.models.Transaction;
-import com.finquik.models.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,15 +22,15 @@ import java.util.Optional;
  * Repository interface for Transaction entities.
  */
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction>, TransactionRepositoryCustom {
 
     /**
      * Finds all transactions belonging to a specific user, ordered by transaction date descending.
      *
-     * @param user The user whose transactions to find.
+     * @param userId The ID of the user whose transactions to find.
      * @return A list of transactions for the given user.
      */
-    List<Transaction> findByUserOrderByTransactionDateDesc(User user);
+    List<Transaction> findByUserIdOrderByTransactionDateDesc(Long userId);
 
     /**
      * Finds all transactions associated with a specific account.
@@ -37,18 +42,58 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
 
     /**
      * Finds a specific transaction by its ID and the user who owns it.
+     * The account and category are fetched in the same query, since every caller maps them to the response.
      *
      * @param id The ID of the transaction.
-     * @param user The user owner.
+     * @param userId The ID of the user owner.
      * @return an {@link Optional} containing the transaction if found and owned by the user.
      */
-    Optional<Transaction> findByIdAndUser(Long id, User user);
+    @EntityGraph(attributePaths = {"account", "category"})
+    Optional<Transaction> findByIdAndUserId(Long id, Long userId);
 
     /**
-     * Calculates the total income and total expenses for a specific user directly in the database.
-     * This query joins to the Category to check its type (INCOME/EXPENSE) and then sums the transaction amounts.
+     * Finds a page of transactions matching the specification, fetching their account and category
+     * with a join so mapping the page doesn't trigger one lazy load per row.
+     * The count query is derived separately by Spring Data and doesn't include the joins.
+     *
+     * @param spec The specification to filter by.
+     * @param pageable Pagination information.
+     * @return A page of transactions with their account and category initialized.
+     */
+    @Override
+    @EntityGraph(attributePaths = {"account", "category"})
+    Page<Transaction> findAll(Specification<Transaction> spec, Pageable pageable);
+
+    /**
+     * Finds the transactions of a user created or updated after a sync position, by transactions older than a horizon,
+     * in the order they changed,
+     * fetching their account and category in the same query.
+     *
+     * @param userId The ID of the user owner.
+     * @param xid The transaction ID of the last change already synced.
+     * @param seq The sequence number of the last change already synced.
+     * @param horizon The transaction ID before which every transaction has ended.
+     * @param limit The maximum number of transactions to return.
+     * @return A list with the matching transactions.
+     */
+    @EntityGraph(attributePaths = {"account", "category"})
+    @Query("""
+        SELECT t FROM Transaction t
+        WHERE t.user.id = :userId
+          AND t.changeXid >= :xid AND (t.changeXid > :xid OR t.changeSeq > :seq)
+          AND t.changeXid < :horizon
+        ORDER BY t.changeXid, t.changeSeq
+    """)
+    List<Transaction> findChangedSince(@Param("userId") Long userId, @Param("xid") long xid, @Param("seq") long seq,
+                                       @Param("horizon") long horizon, Limit limit);
+
+    /**
+     * Calculates the total income and total expenses for a specific user between two dates (both inclusive).
+     * Only used for the partial months of a summary range, whole months are read from the rollups.
      *
      * @param userId The ID of the user for whom to calculate the summary.
+     * @param startDate The start date of the range.
+     * @param endDate The end date of the range.
      * @return an {@link Optional} containing the {@link TransactionSummaryDTO} with total income and expenses.
      */
     @Query("""
@@ -57,9 +102,12 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
             COALESCE(SUM(CASE WHEN t.category.type = com.finquik.models.CategoryType.EXPENSE THEN t.amount ELSE 0 END), 0)
         )
         FROM Transaction t
-        WHERE t.account.user.id = :userId
+        WHERE t.user.id = :userId
+          AND t.transactionDate BETWEEN :startDate AND :endDate
     """)
-    Optional<TransactionSummaryDTO> getTransactionSummaryByUserId(@Param("userId") Long userId);
+    Optional<TransactionSummaryDTO> getTransactionSummaryByUserIdAndDateRange(@Param("userId") Long userId,
+                                                                              @Param("startDate") LocalDate startDate,
+                                                                              @Param("endDate") LocalDate endDate);
 
     //TODO: add complex methods for future features
 }
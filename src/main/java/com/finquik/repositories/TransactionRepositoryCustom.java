@@ -0,0 +1,47 @@
+package com.finquik.repositories;
+
+import com.finquik.DTOs.AnalyticsBucket;
+import com.finquik.DTOs.AnalyticsGroupBy;
+import com.finquik.DTOs.AnalyticsPoint;
+import com.finquik.models.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Custom data access operations for Transaction entities that are not covered by Spring Data derived queries.
+ */
+public interface TransactionRepositoryCustom {
+
+    /**
+     * Inserts all the given transactions using a single JDBC batch and assigns the generated IDs
+     * back to the entities. The user, account and category references must already have their IDs set.
+     *
+     * @param transactions The transactions to insert.
+     */
+    void insertAll(List<Transaction> transactions);
+
+    /**
+     * Streams every transaction matching the specification, ordered by transaction date and ID,
+     * through a forward-only database cursor with the given fetch size. Each transaction is passed to the action
+     * with its account and category initialized, and is detached right after so the persistence context
+     * doesn't grow with the number of rows. Must be called inside a transaction.
+     *
+     * @param spec The specification to filter by.
+     * @param fetchSize The number of rows to fetch from the database in each round trip.
+     * @param action The action to run for each transaction.
+     */
+    void forEachMatching(Specification<Transaction> spec, int fetchSize, Consumer<Transaction> action);
+
+    /**
+     * Aggregates the transactions matching the specification by time bucket and by the given dimension
+     * with a single grouped query, so only the aggregated rows leave the database.
+     *
+     * @param spec The specification to filter by.
+     * @param bucket The size of the time buckets.
+     * @param groupBy The dimension to group by inside each bucket.
+     * @return The aggregated points, ordered by period and key.
+     */
+    List<AnalyticsPoint> aggregate(Specification<Transaction> spec, AnalyticsBucket bucket, AnalyticsGroupBy groupBy);
+}
@@ -0,0 +1,188 @@
+package com.finquik.repositories;
+
+import com.finquik.DTOs.AnalyticsBucket;
+import com.finquik.DTOs.AnalyticsGroupBy;
+import com.finquik.DTOs.AnalyticsPoint;
+import com.finquik.common.ids.TimeOrderedIdGenerator;
+import com.finquik.common.utils.SearchTextNormalizer;
+import com.finquik.config.HibernateFunctionsContributor;
+import com.finquik.models.Account;
+import com.finquik.models.Category;
+import com.finquik.models.CategoryType;
+import com.finquik.models.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO transactions (id, amount, description, description_search, icon_name, transaction_date, attachment_url,
+                                  user_id, account_id, category_id, created_at, updated_at, version)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TimeOrderedIdGenerator idGenerator;
+
+    @Override
+    public void insertAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        // Sent as one plain JDBC batch, skipping the entity lifecycle; IDs come from the same generator Hibernate uses
+        LocalDateTime now = LocalDateTime.now();
+        transactions.forEach(transaction -> transaction.setId(idGenerator.nextId()));
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Transaction transaction = transactions.get(i);
+                ps.setLong(1, transaction.getId());
+                ps.setBigDecimal(2, transaction.getAmount());
+                ps.setString(3, transaction.getDescription());
+                ps.setString(4, SearchTextNormalizer.normalize(transaction.getDescription()));
+                ps.setString(5, transaction.getIconName());
+                ps.setObject(6, transaction.getTransactionDate());
+                ps.setString(7, transaction.getAttachmentUrl());
+                ps.setLong(8, transaction.getUser().getId());
+                ps.setLong(9, transaction.getAccount().getId());
+                ps.setLong(10, transaction.getCategory().getId());
+                ps.setObject(11, now);
+                ps.setObject(12, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return transactions.size();
+            }
+        });
+
+        for (Transaction transaction : transactions) {
+            transaction.setDescriptionSearch(SearchTextNormalizer.normalize(transaction.getDescription()));
+            transaction.setCreatedAt(now);
+            transaction.setUpdatedAt(now);
+            transaction.setVersion(0L);
+        }
+    }
+
+    @Override
+    public void forEachMatching(Specification<Transaction> spec, int fetchSize, Consumer<Transaction> action) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transaction> query = criteriaBuilder.createQuery(Transaction.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        root.fetch("account");
+        root.fetch("category");
+
+        query.select(root)
+                .where(spec.toPredicate(root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get("transactionDate")), criteriaBuilder.asc(root.get("id")));
+
+        try (Stream<Transaction> transactions = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            transactions.forEach(transaction -> {
+                action.accept(transaction);
+                entityManager.detach(transaction);
+            });
+        }
+    }
+
+    @Override
+    public List<AnalyticsPoint> aggregate(Specification<Transaction> spec, AnalyticsBucket bucket, AnalyticsGroupBy groupBy) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Transaction> root = query.from(Transaction.class);
+        Join<Transaction, Category> category = root.join("category");
+
+        Expression<LocalDate> period = criteriaBuilder.function(
+                HibernateFunctionsContributor.dateBucketFunction(bucket), LocalDate.class, root.get("transactionDate"));
+
+        // Grouping expressions: the key identifies the group and the label is only selected when it isn't the key itself
+        List<Expression<?>> groupExpressions = new ArrayList<>();
+        groupExpressions.add(period);
+        Expression<?> key;
+        Expression<String> label = null;
+        switch (groupBy) {
+            case CATEGORY -> {
+                key = category.get("id");
+                label = category.get("name");
+            }
+            case ACCOUNT -> {
+                Join<Transaction, Account> account = root.join("account");
+                key = account.get("id");
+                label = account.get("name");
+            }
+            default -> key = category.get("type");
+        }
+        groupExpressions.add(key);
+        if (label != null) {
+            groupExpressions.add(label);
+        }
+
+        Expression<Boolean> isIncome = criteriaBuilder.equal(category.get("type"), CategoryType.INCOME);
+        Expression<BigDecimal> income = criteriaBuilder.sum(criteriaBuilder.<BigDecimal>selectCase()
+                .when(isIncome, root.<BigDecimal>get("amount"))
+                .otherwise(BigDecimal.ZERO));
+        Expression<BigDecimal> expenses = criteriaBuilder.sum(criteriaBuilder.<BigDecimal>selectCase()
+                .when(isIncome, BigDecimal.ZERO)
+                .otherwise(root.<BigDecimal>get("amount")));
+
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(period.alias("period"));
+        selections.add(key.alias("groupKey"));
+        if (label != null) {
+            selections.add(label.alias("groupLabel"));
+        }
+        selections.add(income.alias("income"));
+        selections.add(expenses.alias("expenses"));
+        selections.add(criteriaBuilder.count(root).alias("transactionCount"));
+
+        query.multiselect(selections)
+                .where(spec.toPredicate(root, query, criteriaBuilder))
+                .groupBy(groupExpressions)
+                .orderBy(criteriaBuilder.asc(period), criteriaBuilder.asc(key));
+
+        boolean hasLabel = label != null;
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(tuple -> {
+                    String groupKey = String.valueOf(tuple.get("groupKey"));
+                    BigDecimal incomeTotal = tuple.get("income", BigDecimal.class);
+                    BigDecimal expensesTotal = tuple.get("expenses", BigDecimal.class);
+                    return AnalyticsPoint.builder()
+                            .period(tuple.get("period", LocalDate.class))
+                            .key(groupKey)
+                            .label(hasLabel ? tuple.get("groupLabel", String.class) : groupKey)
+                            .income(incomeTotal)
+                            .expenses(expensesTotal)
+                            .net(incomeTotal.subtract(expensesTotal))
+                            .count(tuple.get("transactionCount", Long.class))
+                            .build();
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,127 @@
+package com.finquik.repositories;
+
+import com.finquik.DTOs.TransactionSummaryDTO;
+import com.finquik.models.TransactionRollup;
+import com.finquik.models.TransactionRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Repository interface for TransactionRollup entities.
+ */
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, TransactionRollupId> {
+
+    /**
+     * Adds the given deltas to the rollup row of a user, account, category and month, creating it if it doesn't exist.
+     * Runs as a single atomic upsert, so concurrent writes to the same row don't lose updates.
+     *
+     * @param userId The ID of the user.
+     * @param accountId The ID of the account.
+     * @param categoryId The ID of the category.
+     * @param monthStart The first day of the month.
+     * @param incomeDelta The amount to add to the income total.
+     * @param expenseDelta The amount to add to the expense total.
+     * @param incomeCountDelta The number to add to the income count.
+     * @param expenseCountDelta The number to add to the expense count.
+     * @return The number of affected rows.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO transaction_rollups (user_id, account_id, category_id, month_start,
+                                         income_total, expense_total, income_count, expense_count)
+        VALUES (:userId, :accountId, :categoryId, :monthStart,
+                :incomeDelta, :expenseDelta, :incomeCountDelta, :expenseCountDelta)
+        ON CONFLICT (user_id, account_id, category_id, month_start) DO UPDATE SET
+            income_total = transaction_rollups.income_total + EXCLUDED.income_total,
+            expense_total = transaction_rollups.expense_total + EXCLUDED.expense_total,
+            income_count = transaction_rollups.income_count + EXCLUDED.income_count,
+            expense_count = transaction_rollups.expense_count + EXCLUDED.expense_count
+    """, nativeQuery = true)
+    int applyDelta(@Param("userId") Long userId,
+                   @Param("accountId") Long accountId,
+                   @Param("categoryId") Long categoryId,
+                   @Param("monthStart") LocalDate monthStart,
+                   @Param("incomeDelta") BigDecimal incomeDelta,
+                   @Param("expenseDelta") BigDecimal expenseDelta,
+                   @Param("incomeCountDelta") long incomeCountDelta,
+                   @Param("expenseCountDelta") long expenseCountDelta);
+
+    /**
+     * Sums the income and expense totals of a user for the months in the given range (both inclusive).
+     *
+     * @param userId The ID of the user.
+     * @param fromMonth The first day of the first month.
+     * @param toMonth The first day of the last month.
+     * @return an {@link Optional} containing the {@link TransactionSummaryDTO} with total income and expenses.
+     */
+    @Query("""
+        SELECT new com.finquik.DTOs.TransactionSummaryDTO(
+            COALESCE(SUM(r.incomeTotal), 0),
+            COALESCE(SUM(r.expenseTotal), 0)
+        )
+        FROM TransactionRollup r
+        WHERE r.id.userId = :userId
+          AND r.id.monthStart BETWEEN :fromMonth AND :toMonth
+    """)
+    Optional<TransactionSummaryDTO> sumByUserIdAndMonthRange(@Param("userId") Long userId,
+                                                             @Param("fromMonth") LocalDate fromMonth,
+                                                             @Param("toMonth") LocalDate toMonth);
+
+    /**
+     * Deletes every rollup row. Only meant to be used when rebuilding the rollups from scratch.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM transaction_rollups", nativeQuery = true)
+    void deleteAllRows();
+
+    /**
+     * Deletes the rollup rows of a user. Only meant to be used when rebuilding the rollups of that user.
+     *
+     * @param userId The ID of the user.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM transaction_rollups WHERE user_id = :userId", nativeQuery = true)
+    void deleteAllRowsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Recomputes the rollup rows of every user (or of a single one when userId isn't null) from the raw transactions.
+     * The existing rows must have been deleted first.
+     *
+     * @param userId The ID of the user to rebuild, or null to rebuild every user.
+     * @return The number of inserted rows.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO transaction_rollups (user_id, account_id, category_id, month_start,
+                                         income_total, expense_total, income_count, expense_count)
+        SELECT t.user_id,
+               t.account_id,
+               t.category_id,
+               CAST(date_trunc('month', t.transaction_date) AS date),
+               COALESCE(SUM(t.amount) FILTER (WHERE c.type = 'INCOME'), 0),
+               COALESCE(SUM(t.amount) FILTER (WHERE c.type = 'EXPENSE'), 0),
+               COUNT(*) FILTER (WHERE c.type = 'INCOME'),
+               COUNT(*) FILTER (WHERE c.type = 'EXPENSE')
+        FROM transactions t
+        JOIN categories c ON c.id = t.category_id
+        WHERE CAST(:userId AS bigint) IS NULL OR t.user_id = :userId
+        GROUP BY t.user_id, t.account_id, t.category_id, CAST(date_trunc('month', t.transaction_date) AS date)
+    """, nativeQuery = true)
+    int insertFromTransactions(@Param("userId") Long userId);
+
+    /**
+     * Takes an exclusive lock on the rollup table until the end of the current transaction, so concurrent
+     * transaction writes wait for a rebuild instead of being counted twice or not at all.
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE transaction_rollups IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockTable();
+}
@@ -0,0 +1,145 @@
+package com.finquik.repositories;
+
+import com.finquik.common.sharding.ShardContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Directory of the shard that stores each user (table user_shards of the directory shard).
+ * Lookups by user ID are cached, so other instances see a user moved by the rebalancer after
+ * at most {@code app.sharding.directory-cache-ttl}. They're made once per request, by the
+ * {@code UserShardFilter}, never while another connection is being opened. Users being moved
+ * aren't cached, so every instance sees the end of the move on the next request.
+ */
+@Repository
+public class UserShardDirectory {
+
+    private static final int MAXIMUM_CACHED_USERS = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration cacheTtl;
+    private final Cache<Long, Integer> shardsByUserId;
+
+    public UserShardDirectory(DataSource dataSource,
+                              @Value("${app.sharding.directory-cache-ttl:30s}") Duration cacheTtl) {
+        // Wrapped so lookups never join the transaction of the caller, whose connection may belong to another shard
+        this.jdbcTemplate = new JdbcTemplate(new DelegatingDataSource(dataSource));
+        this.cacheTtl = cacheTtl;
+        this.shardsByUserId = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_CACHED_USERS)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * @param userId The ID of the user.
+     * @return The shard of the user and whether it's being moved, or null if the user isn't in the directory.
+     */
+    public Placement findPlacement(Long userId) {
+        Integer cached = shardsByUserId.getIfPresent(userId);
+        if (cached != null) {
+            return new Placement(cached, false);
+        }
+        // Queried outside the cache's compute, which holds a monitor and would pin a virtual thread during the I/O
+        Placement placement = inDirectory(() -> jdbcTemplate.query(
+                "SELECT shard_id, moving FROM user_shards WHERE user_id = ?",
+                (rs, rowNum) -> new Placement(rs.getInt("shard_id"), rs.getBoolean("moving")), userId)
+                .stream().findFirst().orElse(null));
+        if (placement != null && !placement.moving()) {
+            shardsByUserId.put(userId, placement.shard());
+        }
+        return placement;
+    }
+
+    /**
+     * @return How long other instances may keep routing a user to the shard it had when they looked it up.
+     */
+    public Duration cacheTtl() {
+        return cacheTtl;
+    }
+
+    /**
+     * @param email The email of the user.
+     * @return The shard of the user with that email, if there is one.
+     */
+    public Optional<Integer> findShardByEmail(String email) {
+        return inDirectory(() -> jdbcTemplate.query(
+                "SELECT shard_id FROM user_shards WHERE email = ?",
+                (rs, rowNum) -> rs.getInt(1), email).stream().findFirst());
+    }
+
+    /**
+     * Adds a user to the directory.
+     *
+     * @throws org.springframework.dao.DuplicateKeyException If the email is already registered.
+     */
+    public void register(Long userId, String email, int shard) {
+        inDirectory(() -> jdbcTemplate.update(
+                "INSERT INTO user_shards (user_id, email, shard_id) VALUES (?, ?, ?)", userId, email, shard));
+        shardsByUserId.put(userId, shard);
+    }
+
+    /**
+     * Flags a user as being moved, so its requests are rejected until {@link #finishMove} or {@link #cancelMove}.
+     * Other instances only see it once their cached shard of the user expires, after at most {@link #cacheTtl()}.
+     */
+    public void startMove(Long userId) {
+        inDirectory(() -> jdbcTemplate.update("UPDATE user_shards SET moving = true WHERE user_id = ?", userId));
+        shardsByUserId.invalidate(userId);
+    }
+
+    /**
+     * Points the directory at the new shard of a moved user, and accepts its requests again.
+     */
+    public void finishMove(Long userId, int shard) {
+        inDirectory(() -> jdbcTemplate.update(
+                "UPDATE user_shards SET shard_id = ?, moving = false WHERE user_id = ?", shard, userId));
+        shardsByUserId.put(userId, shard);
+    }
+
+    /**
+     * Accepts the requests of a user whose move failed again, on the shard it stayed in.
+     */
+    public void cancelMove(Long userId) {
+        inDirectory(() -> jdbcTemplate.update("UPDATE user_shards SET moving = false WHERE user_id = ?", userId));
+    }
+
+    public void delete(Long userId) {
+        inDirectory(() -> jdbcTemplate.update("DELETE FROM user_shards WHERE user_id = ?", userId));
+        shardsByUserId.invalidate(userId);
+    }
+
+    /**
+     * @return The number of users stored in each shard that has any.
+     */
+    public Map<Integer, Long> countUsersByShard() {
+        List<Map<String, Object>> rows = inDirectory(() -> jdbcTemplate.queryForList(
+                "SELECT shard_id, count(*) AS users FROM user_shards GROUP BY shard_id"));
+        return rows.stream().collect(Collectors.toMap(
+                row -> ((Number) row.get("shard_id")).intValue(),
+                row -> ((Number) row.get("users")).longValue()));
+    }
+
+    private static <T> T inDirectory(Supplier<T> action) {
+        return ShardContext.callInShard(ShardContext.DIRECTORY_SHARD, action);
+    }
+
+    /**
+     * @param shard  The shard that stores the user.
+     * @param moving Whether the user is being moved to another shard.
+     */
+    public record Placement(int shard, boolean moving) {
+    }
+}
@@ -1,18 +1,53 @@
 package com.finquik.repositories.specifications;
 
+import com.finquik.DTOs.DescriptionSearchMode;
+import com.finquik.DTOs.TransactionFilter;
+import com.finquik.common.utils.SearchTextNormalizer;
 import com.finquik.models.*;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 import java.time.LocalDate;
+import java.util.Arrays;
 
 public class TransactionSpecification {
 
+    private static final char LIKE_ESCAPE = '\\';
+
+    /**
+     * Builds the specification for the transactions of a user matching all the non-null fields of the filter.
+     */
+    public static Specification<Transaction> fromFilter(Long userId, TransactionFilter filter) {
+        Specification<Transaction> spec = hasUserId(userId);
+        if (filter.getStartDate() != null) {
+            spec = spec.and(isAfterOrEqualTo(filter.getStartDate()));
+        }
+        if (filter.getEndDate() != null) {
+            spec = spec.and(isBeforeOrEqualTo(filter.getEndDate()));
+        }
+        if (filter.getAccountId() != null) {
+            spec = spec.and(hasAccountId(filter.getAccountId()));
+        }
+        if (filter.getCategoryId() != null) {
+            spec = spec.and(hasCategoryId(filter.getCategoryId()));
+        }
+        if (filter.getType() != null) {
+            spec = spec.and(hasType(filter.getType()));
+        }
+        if (filter.getDescription() != null && !filter.getDescription().isBlank()) {
+            DescriptionSearchMode mode = filter.getSearchMode() != null ? filter.getSearchMode() : DescriptionSearchMode.CONTAINS;
+            spec = spec.and(descriptionMatches(filter.getDescription(), mode));
+        }
+        return spec;
+    }
+
     /**
-     * Specification to filter transactions by user.
+     * Specification to filter transactions by user ID, compared against the foreign key without joining users.
      */
-    public static Specification<Transaction> hasUser(User user) {
+    public static Specification<Transaction> hasUserId(Long userId) {
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.equal(root.get("user"), user);
+                criteriaBuilder.equal(root.get("user").get("id"), userId);
     }
 
     /**
@@ -59,14 +94,63 @@ public class TransactionSpecification {
     }
 
     /**
-     * Specification to filter transactions by a description containing a specific text (case-insensitive).
+     * Specification to filter transactions by a description containing every word of a text, ignoring case and accents.
      */
     public static Specification<Transaction> descriptionContains(String text) {
+        return descriptionMatches(text, DescriptionSearchMode.CONTAINS);
+    }
+
+    /**
+     * Specification to filter transactions by description using the normalized (lower-cased, accent-free) column,
+     * which is backed by a trigram index. Unless the query is explicitly sorted, results are ranked by similarity.
+     */
+    public static Specification<Transaction> descriptionMatches(String text, DescriptionSearchMode mode) {
+        String normalized = SearchTextNormalizer.normalize(text);
+        return (root, query, criteriaBuilder) -> {
+            Expression<String> searchColumn = root.get("descriptionSearch");
+
+            Predicate predicate = switch (mode) {
+                case PREFIX -> criteriaBuilder.or(
+                        criteriaBuilder.like(searchColumn, escapeLike(normalized) + "%", LIKE_ESCAPE),
+                        criteriaBuilder.like(searchColumn, "% " + escapeLike(normalized) + "%", LIKE_ESCAPE)
+                );
+                case PHRASE -> criteriaBuilder.like(searchColumn, "%" + escapeLike(normalized) + "%", LIKE_ESCAPE);
+                case CONTAINS -> criteriaBuilder.and(Arrays.stream(normalized.split(" "))
+                        .map(word -> criteriaBuilder.like(searchColumn, "%" + escapeLike(word) + "%", LIKE_ESCAPE))
+                        .toArray(Predicate[]::new));
+            };
+
+            // Only entity queries are ranked: count and aggregate queries can't be ordered by a non-grouped expression
+            if (Transaction.class.equals(query.getResultType()) && query.getOrderList().isEmpty()) {
+                query.orderBy(
+                        criteriaBuilder.desc(criteriaBuilder.function("similarity", Double.class,
+                                searchColumn, criteriaBuilder.literal(normalized))),
+                        criteriaBuilder.desc(root.get("transactionDate"))
+                );
+            }
+            return predicate;
+        };
+    }
+
+    /**
+     * Specification to keep only the transactions that come after the given keyset position
+     * when ordering by transaction date and ID, both descending.
+     */
+    public static Specification<Transaction> isBeforeKeyset(LocalDate transactionDate, Long id) {
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("description")),
-                        "%" + text.toLowerCase() + "%"
+                criteriaBuilder.or(
+                        criteriaBuilder.lessThan(root.get("transactionDate"), transactionDate),
+                        criteriaBuilder.and(
+                                criteriaBuilder.equal(root.get("transactionDate"), transactionDate),
+                                criteriaBuilder.lessThan(root.get("id"), id)
+                        )
                 );
     }
 
+    // Escapes the LIKE wildcards typed by the user so they are matched literally
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
 }
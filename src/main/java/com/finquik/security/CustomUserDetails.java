@@ -2,8 +2,10 @@ package com.finquik.security;
 
 import com.finquik.models.User;
 import lombok.Getter;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
@@ -18,6 +20,43 @@ public class CustomUserDetails implements UserDetails {
         this.user = user;
     }
 
+    /**
+     * Builds the principal of an already authenticated request from the claims of a verified token,
+     * without loading the user from the database. The wrapped user only carries its identity fields.
+     *
+     * @param id The ID of the user.
+     * @param email The email of the user.
+     * @param firstName The first name of the user.
+     * @param lastName The last name of the user.
+     * @return A principal backed by a detached, identity-only user.
+     */
+    public static CustomUserDetails fromClaims(Long id, String email, String firstName, String lastName) {
+        return new CustomUserDetails(User.builder()
+                .id(id)
+                .email(email)
+                .firstName(firstName)
+                .lastName(lastName)
+                .build());
+    }
+
+    public Long getId() {
+        return user.getId();
+    }
+
+    /**
+     * Returns the ID of the user authenticated in the current thread, for infrastructure code that can't receive it
+     * as an argument (e.g. data source routing).
+     *
+     * @return The ID of the current user, or null outside an authenticated request.
+     */
+    public static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_USER"));
@@ -1,5 +1,6 @@
 package com.finquik.security.config;
 
+import com.finquik.config.sharding.UserShardFilter;
 import com.finquik.security.jwt.JwtAuthenticationFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,9 +20,11 @@ import org.springframework.security.config.Customizer;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final UserShardFilter userShardFilter;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, UserShardFilter userShardFilter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.userShardFilter = userShardFilter;
     }
 
     @Bean
@@ -45,7 +48,8 @@ public class SecurityConfig {
                                 .requestMatchers("/api/auth/**").permitAll()
                                 .anyRequest().authenticated()
                 )
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(userShardFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -1,5 +1,6 @@
 package com.finquik.security.jwt;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.finquik.services.UserDetailsServiceImpl;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -33,10 +34,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromJWT(jwt);
+            DecodedJWT decodedJWT = StringUtils.hasText(jwt) ? tokenProvider.verifyToken(jwt) : null;
+
+            if (decodedJWT != null) {
+                // The principal comes from the signed claims; only tokens issued before they existed hit the database
+                UserDetails userDetails = tokenProvider.getUserDetailsFromJWT(decodedJWT);
+                if (userDetails == null) {
+                    userDetails = userDetailsService.loadUserByUsername(decodedJWT.getSubject());
+                }
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
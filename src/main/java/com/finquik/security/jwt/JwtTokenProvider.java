@@ -1,10 +1,14 @@
 package com.finquik.security.jwt;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.finquik.models.User;
+import com.finquik.security.CustomUserDetails;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,6 +20,10 @@ import java.util.Date;
 @Component
 public class JwtTokenProvider {
 
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String FIRST_NAME_CLAIM = "given_name";
+    private static final String LAST_NAME_CLAIM = "family_name";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
@@ -33,25 +41,21 @@ public class JwtTokenProvider {
 
     public String generateToken(Authentication authentication) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
+        JWTCreator.Builder builder = newToken(userPrincipal.getUsername());
 
-        return JWT.create()
-                .withSubject(userPrincipal.getUsername())
-                .withIssuedAt(now)
-                .withExpiresAt(expiryDate)
-                .sign(this.algorithm);
+        // Embed the identity so authenticated requests can rebuild the principal without a query
+        if (userPrincipal instanceof CustomUserDetails customUserDetails) {
+            User user = customUserDetails.getUser();
+            builder.withClaim(USER_ID_CLAIM, user.getId())
+                    .withClaim(FIRST_NAME_CLAIM, user.getFirstName())
+                    .withClaim(LAST_NAME_CLAIM, user.getLastName());
+        }
+
+        return builder.sign(this.algorithm);
     }
 
     public String generateTokenFromUsername(String username) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
-
-        return JWT.create()
-                .withSubject(username)
-                .withIssuedAt(now)
-                .withExpiresAt(expiryDate)
-                .sign(this.algorithm);
+        return newToken(username).sign(this.algorithm);
     }
 
     public String getUsernameFromJWT(String token) {
@@ -60,12 +64,48 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String authToken) {
+        return verifyToken(authToken) != null;
+    }
+
+    /**
+     * Verifies the signature and expiration of a token.
+     *
+     * @param authToken The raw token.
+     * @return The decoded token, or null if it is not valid.
+     */
+    public DecodedJWT verifyToken(String authToken) {
         try {
-            verifier.verify(authToken);
-            return true;
+            return verifier.verify(authToken);
         } catch (JWTVerificationException ex) {
+            return null;
+        }
+    }
 
+    /**
+     * Builds the request principal from the claims of a verified token.
+     *
+     * @param decodedJWT A token returned by {@link #verifyToken(String)}.
+     * @return The principal, or null if the token predates the identity claims.
+     */
+    public CustomUserDetails getUserDetailsFromJWT(DecodedJWT decodedJWT) {
+        Claim userId = decodedJWT.getClaim(USER_ID_CLAIM);
+        if (userId.isMissing() || userId.isNull()) {
+            return null;
         }
-        return false;
+        return CustomUserDetails.fromClaims(
+                userId.asLong(),
+                decodedJWT.getSubject(),
+                decodedJWT.getClaim(FIRST_NAME_CLAIM).asString(),
+                decodedJWT.getClaim(LAST_NAME_CLAIM).asString());
+    }
+
+    private JWTCreator.Builder newToken(String subject) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
+
+        return JWT.create()
+                .withSubject(subject)
+                .withIssuedAt(now)
+                .withExpiresAt(expiryDate);
     }
 }
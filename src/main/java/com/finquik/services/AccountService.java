@@ -11,43 +11,43 @@ public interface AccountService {
      * Creates a new account for the currently authenticated user.
      *
      * @param accountRequest DTO with the account details.
-     * @param userEmail The email of the authenticated user.
+     * @param userId The ID of the authenticated user.
      * @return The created account information.
      */
-    AccountResponse createAccount(AccountRequest accountRequest, String userEmail);
+    AccountResponse createAccount(AccountRequest accountRequest, Long userId);
 
     /**
      * Retrieves all accounts for the currently authenticated user.
      *
-     * @param userEmail The email of the authenticated user.
+     * @param userId The ID of the authenticated user.
      * @return A list of all accounts belonging to the user.
      */
-    List<AccountResponse> getAccountsByUser(String userEmail);
+    List<AccountResponse> getAccountsByUser(Long userId);
 
     /**
      * Retrieves a single account by its ID, ensuring it belongs to the authenticated user.
      *
      * @param accountId The ID of the account to retrieve.
-     * @param userEmail The email of the authenticated user.
+     * @param userId The ID of the authenticated user.
      * @return The account information.
      */
-    AccountResponse getAccountById(Long accountId, String userEmail);
+    AccountResponse getAccountById(Long accountId, Long userId);
 
     /**
      * Updates an existing account, ensuring it belongs to the authenticated user.
      *
      * @param accountId The ID of the account to update.
      * @param accountRequest DTO with the new account details.
-     * @param userEmail The email of the authenticated user.
+     * @param userId The ID of the authenticated user.
      * @return The updated account information.
      */
-    AccountResponse updateAccount(Long accountId, AccountRequest accountRequest, String userEmail);
+    AccountResponse updateAccount(Long accountId, AccountRequest accountRequest, Long userId);
 
     /**
      * Deletes an account, ensuring it belongs to the authenticated user.
      *
      * @param accountId The ID of the account to delete.
-     * @param userEmail The email of the authenticated user.
+     * @param userId The ID of the authenticated user.
      */
-    void deleteAccount(Long accountId, String userEmail);
+    void deleteAccount(Long accountId, Long userId);
 }
\ No newline at end of file
@@ -1,13 +1,20 @@
 package com.finquik.services;
 
 import com.finquik.common.exceptions.ResourceNotFoundException;
+import com.finquik.common.retry.RetryOnOptimisticLock;
+import com.finquik.config.CacheConfig;
 import com.finquik.DTOs.AccountRequest;
 import com.finquik.DTOs.AccountResponse;
 import com.finquik.models.Account;
-import com.finquik.models.User;
+import com.finquik.models.DeletedRecord;
+import com.finquik.models.SyncEntityType;
 import com.finquik.repositories.AccountRepository;
+import com.finquik.repositories.DeletedRecordRepository;
 import com.finquik.repositories.UserRepository;
+import com.finquik.services.cache.UserDataVersionTracker;
+import com.finquik.services.mappers.ResponseMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,87 +27,78 @@ public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final DeletedRecordRepository deletedRecordRepository;
+    private final UserDataVersionTracker userDataVersionTracker;
 
     @Override
     @Transactional
-    public AccountResponse createAccount(AccountRequest accountRequest, String userEmail) {
-        User user = findUserByEmail(userEmail);
-
+    public AccountResponse createAccount(AccountRequest accountRequest, Long userId) {
         Account account = Account.builder()
                 .name(accountRequest.getName())
                 .type(accountRequest.getType())
                 .initialBalance(accountRequest.getInitialBalance())
                 .currentBalance(accountRequest.getInitialBalance()) //TODO: handle balance updates based on transactions
                 .currency(accountRequest.getCurrency().toUpperCase())
-                .user(user)
+                .user(userRepository.getReferenceById(userId))
                 .build();
 
         Account savedAccount = accountRepository.save(account);
+        userDataVersionTracker.bump(userId);
 
-        return mapToAccountResponse(savedAccount);
+        return ResponseMapper.toAccountResponse(savedAccount);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<AccountResponse> getAccountsByUser(String userEmail) {
-        User user = findUserByEmail(userEmail);
-        List<Account> accounts = accountRepository.findByUser(user);
+    @Cacheable(cacheNames = CacheConfig.ACCOUNTS_CACHE, key = "@userDataVersionTracker.key(#userId)")
+    public List<AccountResponse> getAccountsByUser(Long userId) {
+        List<Account> accounts = accountRepository.findByUserId(userId);
         return accounts.stream()
-                .map(this::mapToAccountResponse)
+                .map(ResponseMapper::toAccountResponse)
                 .collect(Collectors.toList());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public AccountResponse getAccountById(Long accountId, String userEmail) {
-        User user = findUserByEmail(userEmail);
-        Account account = accountRepository.findByIdAndUser(accountId, user)
+    public AccountResponse getAccountById(Long accountId, Long userId) {
+        Account account = accountRepository.findByIdAndUserId(accountId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account", "id", accountId));
 
-        return mapToAccountResponse(account);
+        return ResponseMapper.toAccountResponse(account);
     }
 
     @Override
     @Transactional
-    public AccountResponse updateAccount(Long accountId, AccountRequest accountRequest, String userEmail) {
-        User user = findUserByEmail(userEmail);
-        Account accountToUpdate = accountRepository.findByIdAndUser(accountId, user)
+    @RetryOnOptimisticLock
+    public AccountResponse updateAccount(Long accountId, AccountRequest accountRequest, Long userId) {
+        Account accountToUpdate = accountRepository.findByIdAndUserId(accountId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account", "id", accountId));
 
         // Not allowing changes to initial balance, type, or currency
         accountToUpdate.setName(accountRequest.getName());
 
         Account updatedAccount = accountRepository.save(accountToUpdate);
+        userDataVersionTracker.bump(userId);
 
-        return mapToAccountResponse(updatedAccount);
+        return ResponseMapper.toAccountResponse(updatedAccount);
     }
 
     @Override
     @Transactional
-    public void deleteAccount(Long accountId, String userEmail) {
-        User user = findUserByEmail(userEmail);
-        Account accountToDelete = accountRepository.findByIdAndUser(accountId, user)
+    @RetryOnOptimisticLock
+    public void deleteAccount(Long accountId, Long userId) {
+        Account accountToDelete = accountRepository.findByIdAndUserId(accountId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account", "id", accountId));
 
         // TODO: Consider in the future how to handle transactions associated with this account.
         accountRepository.delete(accountToDelete);
-    }
-
-    // auxiliary private methods to reuse code and keep public methods cleaner
-    private AccountResponse mapToAccountResponse(Account account) {
-        return AccountResponse.builder()
-                .id(account.getId())
-                .name(account.getName())
-                .type(account.getType())
-                .currentBalance(account.getCurrentBalance())
-                .currency(account.getCurrency())
-                .createdAt(account.getCreatedAt())
-                .updatedAt(account.getUpdatedAt())
-                .build();
-    }
 
-    private User findUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
+        // Leave a tombstone so incremental syncs learn about the deletion
+        deletedRecordRepository.save(DeletedRecord.builder()
+                .userId(userId)
+                .entityType(SyncEntityType.ACCOUNT)
+                .entityId(accountId)
+                .build());
+        userDataVersionTracker.bump(userId);
     }
 }
\ No newline at end of file
@@ -7,9 +7,9 @@ import com.finquik.models.CategoryType;
 import java.util.List;
 
 public interface CategoryService {
-    CategoryResponse createCategory(CategoryRequest categoryRequest, String userEmail);
-    List<CategoryResponse> getCategoriesByUser(String userEmail, CategoryType type);
-    CategoryResponse getCategoryById(Long categoryId, String userEmail);
-    CategoryResponse updateCategory(Long categoryId, CategoryRequest categoryRequest, String userEmail);
-    void deleteCategory(Long categoryId, String userEmail);
+    CategoryResponse createCategory(CategoryRequest categoryRequest, Long userId);
+    List<CategoryResponse> getCategoriesByUser(Long userId, CategoryType type);
+    CategoryResponse getCategoryById(Long categoryId, Long userId);
+    CategoryResponse updateCategory(Long categoryId, CategoryRequest categoryRequest, Long userId);
+    void deleteCategory(Long categoryId, Long userId);
 }
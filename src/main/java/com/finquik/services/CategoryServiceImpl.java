@@ -2,14 +2,21 @@ package com.finquik.services;
 
 import com.finquik.common.exceptions.DuplicateResourceException;
 import com.finquik.common.exceptions.ResourceNotFoundException;
+import com.finquik.common.retry.RetryOnOptimisticLock;
+import com.finquik.config.CacheConfig;
 import com.finquik.DTOs.CategoryRequest;
 import com.finquik.DTOs.CategoryResponse;
 import com.finquik.models.Category;
-import com.finquik.models.User;
 import com.finquik.models.CategoryType;
+import com.finquik.models.DeletedRecord;
+import com.finquik.models.SyncEntityType;
 import com.finquik.repositories.CategoryRepository;
+import com.finquik.repositories.DeletedRecordRepository;
 import com.finquik.repositories.UserRepository;
+import com.finquik.services.cache.UserDataVersionTracker;
+import com.finquik.services.mappers.ResponseMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,14 +29,14 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
+    private final DeletedRecordRepository deletedRecordRepository;
+    private final UserDataVersionTracker userDataVersionTracker;
 
     @Override
     @Transactional
-    public CategoryResponse createCategory(CategoryRequest categoryRequest, String userEmail) {
-        User user = findUserByEmail(userEmail);
-
+    public CategoryResponse createCategory(CategoryRequest categoryRequest, Long userId) {
         // Validates to avoid duplicate category names for the same user and type
-        if (categoryRepository.existsByNameAndUserAndType(categoryRequest.getName(), user, categoryRequest.getType())) {
+        if (categoryRepository.existsByNameAndUserIdAndType(categoryRequest.getName(), userId, categoryRequest.getType())) {
             throw new DuplicateResourceException("Category with name '" + categoryRequest.getName() + "' and type '" + categoryRequest.getType() + "' already exists.");
         }
 
@@ -37,47 +44,47 @@ public class CategoryServiceImpl implements CategoryService {
                 .name(categoryRequest.getName())
                 .type(categoryRequest.getType())
                 .iconName(categoryRequest.getIconName())
-                .user(user)
+                .user(userRepository.getReferenceById(userId))
                 .build();
 
         Category savedCategory = categoryRepository.save(category);
-        return mapToCategoryResponse(savedCategory);
+        userDataVersionTracker.bump(userId);
+        return ResponseMapper.toCategoryResponse(savedCategory);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<CategoryResponse> getCategoriesByUser(String userEmail, CategoryType type) {
-        User user = findUserByEmail(userEmail);
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES_CACHE, key = "@userDataVersionTracker.key(#userId, #type)")
+    public List<CategoryResponse> getCategoriesByUser(Long userId, CategoryType type) {
         List<Category> categories;
 
         if (type != null) {
-            categories = categoryRepository.findByUserAndType(user, type);
+            categories = categoryRepository.findByUserIdAndType(userId, type);
         } else {
-            categories = categoryRepository.findByUser(user);
+            categories = categoryRepository.findByUserId(userId);
         }
 
         return categories.stream()
-                .map(this::mapToCategoryResponse)
+                .map(ResponseMapper::toCategoryResponse)
                 .collect(Collectors.toList());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public CategoryResponse getCategoryById(Long categoryId, String userEmail) {
-        User user = findUserByEmail(userEmail);
-        Category category = findCategoryByIdAndUser(categoryId, user);
-        return mapToCategoryResponse(category);
+    public CategoryResponse getCategoryById(Long categoryId, Long userId) {
+        Category category = findCategoryByIdAndUser(categoryId, userId);
+        return ResponseMapper.toCategoryResponse(category);
     }
 
     @Override
     @Transactional
-    public CategoryResponse updateCategory(Long categoryId, CategoryRequest categoryRequest, String userEmail) {
-        User user = findUserByEmail(userEmail);
-        Category categoryToUpdate = findCategoryByIdAndUser(categoryId, user);
+    @RetryOnOptimisticLock
+    public CategoryResponse updateCategory(Long categoryId, CategoryRequest categoryRequest, Long userId) {
+        Category categoryToUpdate = findCategoryByIdAndUser(categoryId, userId);
 
         // Validates to avoid duplicate category names for the same user and type when updating
         if (!categoryToUpdate.getName().equalsIgnoreCase(categoryRequest.getName()) &&
-                categoryRepository.existsByNameAndUserAndType(categoryRequest.getName(), user, categoryToUpdate.getType())) {
+                categoryRepository.existsByNameAndUserIdAndType(categoryRequest.getName(), userId, categoryToUpdate.getType())) {
             throw new DuplicateResourceException("Category with name '" + categoryRequest.getName() + "' already exists for this type.");
         }
 
@@ -85,36 +92,31 @@ public class CategoryServiceImpl implements CategoryService {
         // It is not allowed to change the type of a category after creation
 
         Category updatedCategory = categoryRepository.save(categoryToUpdate);
-        return mapToCategoryResponse(updatedCategory);
+        userDataVersionTracker.bump(userId);
+        return ResponseMapper.toCategoryResponse(updatedCategory);
     }
 
     @Override
     @Transactional
-    public void deleteCategory(Long categoryId, String userEmail) {
-        User user = findUserByEmail(userEmail);
-        Category categoryToDelete = findCategoryByIdAndUser(categoryId, user);
+    @RetryOnOptimisticLock
+    public void deleteCategory(Long categoryId, Long userId) {
+        Category categoryToDelete = findCategoryByIdAndUser(categoryId, userId);
 
         // TODO: consider validating if the category is in use by any transactions before deletion.
 
         categoryRepository.delete(categoryToDelete);
-    }
 
-    private Category findCategoryByIdAndUser(Long categoryId, User user) {
-        return categoryRepository.findByIdAndUser(categoryId, user)
-                .orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
+        // Leave a tombstone so incremental syncs learn about the deletion
+        deletedRecordRepository.save(DeletedRecord.builder()
+                .userId(userId)
+                .entityType(SyncEntityType.CATEGORY)
+                .entityId(categoryId)
+                .build());
+        userDataVersionTracker.bump(userId);
     }
 
-    private User findUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
-    }
-
-    private CategoryResponse mapToCategoryResponse(Category category) {
-        return CategoryResponse.builder()
-                .id(category.getId())
-                .name(category.getName())
-                .type(category.getType())
-                .iconName(category.getIconName())
-                .build();
+    private Category findCategoryByIdAndUser(Long categoryId, Long userId) {
+        return categoryRepository.findByIdAndUserId(categoryId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.finquik.services;
+
+import com.finquik.config.SeedDataProperties;
+
+public interface SeedDataService {
+
+    /**
+     * Generates users with their accounts, categories and transactions, spread over the shards like registered
+     * users, and brings the balances and rollups up to date with them. Meant for test and staging databases:
+     * the generated emails are predictable, so seeding the same database twice needs another email domain.
+     *
+     * @param settings The size and shape of the data.
+     */
+    void seed(SeedDataProperties settings);
+}
@@ -0,0 +1,295 @@
+package com.finquik.services;
+
+import com.finquik.common.ids.TimeOrderedIdGenerator;
+import com.finquik.common.sharding.ShardContext;
+import com.finquik.common.utils.SearchTextNormalizer;
+import com.finquik.config.SeedDataProperties;
+import com.finquik.models.Account;
+import com.finquik.models.AccountType;
+import com.finquik.models.Category;
+import com.finquik.models.CategoryType;
+import com.finquik.repositories.SeedDataRepository;
+import com.finquik.repositories.SeedDataRepository.CopyBatch;
+import com.finquik.repositories.SeedDataRepository.CopyWriter;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeedDataServiceImpl implements SeedDataService {
+
+    private static final String USER_COLUMNS = "id, first_name, last_name, email, password, created_at, updated_at";
+    private static final String ACCOUNT_COLUMNS = "id, user_id, name, type, initial_balance, current_balance, currency, version, created_at, updated_at";
+    private static final String CATEGORY_COLUMNS = "id, user_id, name, type, icon_name, version, created_at, updated_at";
+    private static final String TRANSACTION_COLUMNS = "id, user_id, account_id, category_id, amount, description, description_search, icon_name, transaction_date, version, created_at, updated_at";
+    private static final String DIRECTORY_COLUMNS = "user_id, email, shard_id";
+
+    private static final String CURRENCY = "ARS";
+    private static final AccountType[] ACCOUNT_TYPES = {AccountType.BANK_ACCOUNT, AccountType.CASH, AccountType.CREDIT_CARD, AccountType.INVESTMENT};
+    private static final String[] ACCOUNT_NAMES = {"Checking", "Wallet", "Credit card", "Investments"};
+    private static final String[][] INCOME_CATEGORIES = {{"Salary", "wallet"}, {"Freelance", "briefcase"}};
+    // Ordered by how common they are, the category skew favours the first ones
+    private static final String[][] EXPENSE_CATEGORIES = {
+            {"Groceries", "cart"}, {"Restaurants", "utensils"}, {"Transport", "bus"}, {"Shopping", "bag"},
+            {"Entertainment", "film"}, {"Utilities", "bolt"}, {"Health", "heart"}, {"Rent", "home"}};
+    private static final String[] INCOME_DESCRIPTIONS = {"Pago de sueldo", "Transferencia cliente", "Reintegro", "Honorarios"};
+    private static final String[] EXPENSE_DESCRIPTIONS = {
+            "Supermercado Día", "Café Martínez", "Uber viaje", "Farmacia del centro", "Netflix", "Mercado Libre compra",
+            "Panadería La Espiga", "YPF combustible", "Alquiler departamento", "Edenor factura", "Cine Hoyts",
+            "Verdulería", "Gimnasio mensual", "Librería Ateneo"};
+    private static final Map<String, String> SEARCH_DESCRIPTIONS = Stream.of(INCOME_DESCRIPTIONS, EXPENSE_DESCRIPTIONS)
+            .flatMap(Arrays::stream)
+            .collect(Collectors.toMap(Function.identity(), SearchTextNormalizer::normalize));
+
+    private final SeedDataRepository seedDataRepository;
+    private final TransactionRollupService transactionRollupService;
+    private final PasswordEncoder passwordEncoder;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TimeOrderedIdGenerator idGenerator;
+
+    @Override
+    public void seed(SeedDataProperties settings) {
+        if (settings.getUsers() < 1 || settings.getMonths() < 1 || settings.getAccountsPerUser() < 1
+                || settings.getThreads() < 1 || settings.getUsersPerBatch() < 1 || settings.getTransactions() < 0) {
+            throw new IllegalArgumentException("Invalid seed settings: " + settings);
+        }
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        YearMonth firstMonth = YearMonth.from(today).minusMonths(settings.getMonths() - 1);
+        Generation generation = new Generation(settings, passwordEncoder.encode(settings.getPassword()),
+                firstMonth.atDay(1), (int) ChronoUnit.DAYS.between(firstMonth.atDay(1), today) + 1,
+                shares(settings.getTransactions(), settings.getUsers(), settings.getUserSkew()),
+                cumulativeWeights(EXPENSE_CATEGORIES.length, settings.getCategorySkew()));
+
+        // 1. Generate and load the users in batches, several at a time
+        List<Future<?>> batches = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(settings.getThreads())) {
+            for (int first = 0; first < settings.getUsers(); first += settings.getUsersPerBatch()) {
+                int from = first;
+                int to = Math.min(first + settings.getUsersPerBatch(), settings.getUsers());
+                batches.add(executor.submit(() -> seedBatch(generation, from, to)));
+            }
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Could not generate the seed data", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating the seed data", ex);
+        }
+        log.info("Loaded {} users and {} transactions in {} s", settings.getUsers(), settings.getTransactions(),
+                (System.nanoTime() - start) / 1_000_000_000L);
+
+        // 2. Bring the balances and rollups up to date with the loaded transactions
+        ShardContext.forEachShard(() -> {
+            seedDataRepository.updateBalancesFromTransactions();
+            transactionRollupService.rebuildAll();
+            seedDataRepository.analyze();
+        });
+        // Everything was written behind Hibernate's back, so cached balances and category lists may be stale
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        cache.evictEntityData(Account.class);
+        cache.evictEntityData(Category.class);
+        log.info("Seeded the database in {} s", (System.nanoTime() - start) / 1_000_000_000L);
+    }
+
+    // Splits the users of a batch by shard, and loads each part into its shard and the directory
+    private void seedBatch(Generation generation, int from, int to) {
+        Map<Integer, List<Integer>> usersByShard = new TreeMap<>();
+        for (int user = from; user < to; user++) {
+            usersByShard.computeIfAbsent(ShardContext.shardForEmail(generation.email(user)), shard -> new ArrayList<>()).add(user);
+        }
+        // Seeded per batch, so the data doesn't depend on the number of threads
+        SplittableRandom random = new SplittableRandom(generation.settings().getRandomSeed() + from);
+
+        usersByShard.forEach((shard, users) -> seedShard(generation, shard, users, random));
+    }
+
+    /**
+     * Loads users into their shard in one transaction, so a failed batch leaves none of its rows behind. Their
+     * directory entries are committed with them in the directory shard, and after them in any other shard, so the
+     * directory never points to a user that wasn't loaded.
+     */
+    private void seedShard(Generation generation, int shard, List<Integer> users, SplittableRandom random) {
+        long[] userIds;
+        try (CopyBatch batch = ShardContext.callInShard(shard, seedDataRepository::openBatch)) {
+            userIds = seedUsers(batch, generation, users, random);
+            if (shard == ShardContext.DIRECTORY_SHARD) {
+                register(batch, generation, users, userIds, shard);
+            }
+            batch.commit();
+        }
+        if (shard != ShardContext.DIRECTORY_SHARD) {
+            try (CopyBatch directory = ShardContext.callInShard(ShardContext.DIRECTORY_SHARD, seedDataRepository::openBatch)) {
+                register(directory, generation, users, userIds, shard);
+                directory.commit();
+            }
+        }
+    }
+
+    private static void register(CopyBatch batch, Generation generation, List<Integer> users, long[] userIds, int shard) {
+        try (CopyWriter directory = batch.copy("user_shards", DIRECTORY_COLUMNS)) {
+            for (int i = 0; i < users.size(); i++) {
+                directory.row(userIds[i], generation.email(users.get(i)), shard);
+            }
+        }
+    }
+
+    private long[] seedUsers(CopyBatch batch, Generation generation, List<Integer> users, SplittableRandom random) {
+        SeedDataProperties settings = generation.settings();
+        LocalDateTime now = LocalDateTime.now();
+        int accountsPerUser = settings.getAccountsPerUser();
+
+        long[] userIds = new long[users.size()];
+        long[][] accountIds = new long[users.size()][accountsPerUser];
+        long[][] incomeCategoryIds = new long[users.size()][INCOME_CATEGORIES.length];
+        long[][] expenseCategoryIds = new long[users.size()][EXPENSE_CATEGORIES.length];
+
+        // 1. Users with a shared password hash, and their accounts and categories
+        try (CopyWriter userRows = batch.copy("users", USER_COLUMNS)) {
+            for (int i = 0; i < users.size(); i++) {
+                userIds[i] = idGenerator.nextId();
+                userRows.row(userIds[i], "Seed", "User " + users.get(i), generation.email(users.get(i)),
+                        generation.passwordHash(), now, now);
+            }
+        }
+        try (CopyWriter accountRows = batch.copy("accounts", ACCOUNT_COLUMNS)) {
+            for (int i = 0; i < users.size(); i++) {
+                for (int a = 0; a < accountsPerUser; a++) {
+                    AccountType type = ACCOUNT_TYPES[a % ACCOUNT_TYPES.length];
+                    BigDecimal initialBalance = BigDecimal.valueOf(random.nextLong(0, 10_000_000), 2);
+                    accountIds[i][a] = idGenerator.nextId();
+                    String name = a < ACCOUNT_NAMES.length ? ACCOUNT_NAMES[a] : ACCOUNT_NAMES[a % ACCOUNT_NAMES.length] + " " + (a + 1);
+                    accountRows.row(accountIds[i][a], userIds[i], name, type.name(),
+                            initialBalance, initialBalance, CURRENCY, 0, now, now);
+                }
+            }
+        }
+        try (CopyWriter categoryRows = batch.copy("categories", CATEGORY_COLUMNS)) {
+            for (int i = 0; i < users.size(); i++) {
+                for (int c = 0; c < INCOME_CATEGORIES.length; c++) {
+                    incomeCategoryIds[i][c] = idGenerator.nextId();
+                    categoryRows.row(incomeCategoryIds[i][c], userIds[i], INCOME_CATEGORIES[c][0],
+                            CategoryType.INCOME.name(), INCOME_CATEGORIES[c][1], 0, now, now);
+                }
+                for (int c = 0; c < EXPENSE_CATEGORIES.length; c++) {
+                    expenseCategoryIds[i][c] = idGenerator.nextId();
+                    categoryRows.row(expenseCategoryIds[i][c], userIds[i], EXPENSE_CATEGORIES[c][0],
+                            CategoryType.EXPENSE.name(), EXPENSE_CATEGORIES[c][1], 0, now, now);
+                }
+                // The default categories every registered user gets, without transactions
+                for (CategoryType type : CategoryType.values()) {
+                    categoryRows.row(idGenerator.nextId(), userIds[i], UserServiceImpl.DEFAULT_CATEGORY_NAME,
+                            type.name(), null, 0, now, now);
+                }
+            }
+        }
+
+        // 2. Their transactions, streamed as they're generated
+        try (CopyWriter transactionRows = batch.copy("transactions", TRANSACTION_COLUMNS)) {
+            for (int i = 0; i < users.size(); i++) {
+                for (int t = 0; t < generation.transactionsPerUser()[users.get(i)]; t++) {
+                    boolean income = random.nextDouble() < settings.getIncomeRatio();
+                    int category = income
+                            ? random.nextInt(INCOME_CATEGORIES.length)
+                            : pick(generation.expenseCategoryWeights(), random);
+                    String description = income
+                            ? INCOME_DESCRIPTIONS[random.nextInt(INCOME_DESCRIPTIONS.length)]
+                            : EXPENSE_DESCRIPTIONS[random.nextInt(EXPENSE_DESCRIPTIONS.length)];
+                    BigDecimal amount = income
+                            ? BigDecimal.valueOf(random.nextLong(50_000, 1_000_000), 2)
+                            : BigDecimal.valueOf(random.nextLong(100, 50_000), 2);
+                    transactionRows.row(idGenerator.nextId(), userIds[i],
+                            accountIds[i][random.nextInt(accountsPerUser)],
+                            income ? incomeCategoryIds[i][category] : expenseCategoryIds[i][category],
+                            amount, description, SEARCH_DESCRIPTIONS.get(description),
+                            income ? INCOME_CATEGORIES[category][1] : EXPENSE_CATEGORIES[category][1],
+                            generation.firstDay().plusDays(random.nextInt(generation.days())), 0, now, now);
+                }
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Splits a total over a number of items in proportion to 1 / rank^skew, the first items getting the largest shares.
+     */
+    private static int[] shares(int total, int items, double skew) {
+        double[] weights = new double[items];
+        double sum = 0;
+        for (int i = 0; i < items; i++) {
+            weights[i] = 1 / Math.pow(i + 1, skew);
+            sum += weights[i];
+        }
+        int[] shares = new int[items];
+        long assigned = 0;
+        for (int i = 0; i < items; i++) {
+            shares[i] = (int) (total * weights[i] / sum);
+            assigned += shares[i];
+        }
+        // What rounding down left over goes to the first items
+        for (int i = 0; assigned < total; i = (i + 1) % items, assigned++) {
+            shares[i]++;
+        }
+        return shares;
+    }
+
+    private static double[] cumulativeWeights(int items, double skew) {
+        double[] cumulative = new double[items];
+        double sum = 0;
+        for (int i = 0; i < items; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < items; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulativeWeights, SplittableRandom random) {
+        double value = random.nextDouble();
+        for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+            if (value < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    /**
+     * What every batch needs to generate its users, computed once.
+     */
+    private record Generation(SeedDataProperties settings, String passwordHash, LocalDate firstDay, int days,
+                              int[] transactionsPerUser, double[] expenseCategoryWeights) {
+
+        String email(int user) {
+            return "user" + user + "@" + settings.getEmailDomain();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.finquik.services;
+
+import java.util.Map;
+
+public interface ShardRebalancingService {
+
+    /**
+     * Moves all the data of a user to another shard and points the directory at it. Requests of the user are
+     * rejected during the move, which first waits for the directory caches of every instance to expire, so none
+     * of them reads or writes the old shard once the data is copied.
+     *
+     * @param userId      The ID of the user.
+     * @param targetShard The shard to move the user to.
+     */
+    void moveUser(Long userId, int targetShard);
+
+    /**
+     * @return The number of users stored in each shard.
+     */
+    Map<Integer, Long> countUsersByShard();
+}
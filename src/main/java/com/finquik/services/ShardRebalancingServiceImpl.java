@@ -0,0 +1,197 @@
+package com.finquik.services;
+
+import com.finquik.common.exceptions.BadRequestException;
+import com.finquik.common.exceptions.ResourceNotFoundException;
+import com.finquik.common.sharding.ShardContext;
+import com.finquik.repositories.UserShardDirectory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShardRebalancingServiceImpl implements ShardRebalancingService {
+
+    private static final int COPY_BATCH_SIZE = 1000;
+
+    /**
+     * Tables holding user data, in foreign key order, with the column that scopes them to a user.
+     * Tombstone IDs are generated by each database, so they're not copied.
+     */
+    private static final List<UserTable> USER_TABLES = List.of(
+            new UserTable("users", "id", List.of()),
+            new UserTable("categories", "user_id", List.of()),
+            new UserTable("accounts", "user_id", List.of()),
+            new UserTable("transactions", "user_id", List.of()),
+            new UserTable("transaction_rollups", "user_id", List.of()),
+            new UserTable("deleted_records", "user_id", List.of("id")));
+
+    private final DataSource dataSource;
+    private final UserShardDirectory userShardDirectory;
+
+    @Override
+    public void moveUser(Long userId, int targetShard) {
+        UserShardDirectory.Placement placement = userShardDirectory.findPlacement(userId);
+        if (placement == null) {
+            throw new ResourceNotFoundException("User", "id", userId);
+        }
+        if (targetShard < 0 || targetShard >= ShardContext.shardCount()) {
+            throw new BadRequestException("Shard " + targetShard + " doesn't exist");
+        }
+        int sourceShard = placement.shard();
+        if (sourceShard == targetShard) {
+            return;
+        }
+
+        // 1. Reject the user's requests, and wait until no instance still routes them to the source shard from its cache
+        userShardDirectory.startMove(userId);
+        boolean moved = false;
+        try {
+            log.info("Waiting {} for every instance to stop routing user {} to shard {}",
+                    userShardDirectory.cacheTtl(), userId, sourceShard);
+            Thread.sleep(userShardDirectory.cacheTtl().toMillis());
+
+            copyAndSwitch(userId, sourceShard, targetShard);
+            moved = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while moving user " + userId, e);
+        } finally {
+            if (!moved) {
+                userShardDirectory.cancelMove(userId);
+            }
+        }
+
+        log.info("Moved user {} from shard {} to shard {}", userId, sourceShard, targetShard);
+    }
+
+    @Override
+    public Map<Integer, Long> countUsersByShard() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (int shard = 0; shard < ShardContext.shardCount(); shard++) {
+            counts.put(shard, 0L);
+        }
+        counts.putAll(userShardDirectory.countUsersByShard());
+        return counts;
+    }
+
+    private void copyAndSwitch(Long userId, int sourceShard, int targetShard) {
+        try (Connection source = connectionTo(sourceShard); Connection target = connectionTo(targetShard)) {
+            source.setAutoCommit(false);
+            target.setAutoCommit(false);
+            JdbcTemplate sourceJdbc = new JdbcTemplate(new SingleConnectionDataSource(source, true));
+            // Streams the rows instead of loading a user's whole history at once
+            sourceJdbc.setFetchSize(COPY_BATCH_SIZE);
+            JdbcTemplate targetJdbc = new JdbcTemplate(new SingleConnectionDataSource(target, true));
+
+            // 2. Lock the rows every write of the user goes through (directly or by foreign key), in case a request
+            // that started before the move is still running
+            sourceJdbc.queryForList("SELECT id FROM users WHERE id = ? FOR UPDATE", userId);
+            sourceJdbc.queryForList("SELECT id FROM accounts WHERE user_id = ? FOR UPDATE", userId);
+            sourceJdbc.queryForList("SELECT id FROM categories WHERE user_id = ? FOR UPDATE", userId);
+
+            // 3. Copy every row to the target shard
+            for (UserTable table : USER_TABLES) {
+                int rows = copyRows(sourceJdbc, targetJdbc, table, userId);
+                log.info("Copied {} rows of {} for user {} from shard {} to shard {}",
+                        rows, table.name(), userId, sourceShard, targetShard);
+            }
+            target.commit();
+
+            // 4. Route the user to the target shard, then remove the rows no instance reads anymore from the source one
+            userShardDirectory.finishMove(userId, targetShard);
+            List<UserTable> reversed = new ArrayList<>(USER_TABLES);
+            Collections.reverse(reversed);
+            for (UserTable table : reversed) {
+                sourceJdbc.update("DELETE FROM " + table.name() + " WHERE " + table.userColumn() + " = ?", userId);
+            }
+            source.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Couldn't move user " + userId + " to shard " + targetShard, e);
+        }
+    }
+
+    private Connection connectionTo(int shard) {
+        return ShardContext.callInShard(shard, () -> DataSourceUtils.getConnection(dataSource));
+    }
+
+    private int copyRows(JdbcTemplate sourceJdbc, JdbcTemplate targetJdbc, UserTable table, Long userId) {
+        RowCopier copier = new RowCopier(targetJdbc, table);
+        sourceJdbc.query("SELECT * FROM " + table.name() + " WHERE " + table.userColumn() + " = ?", copier, userId);
+        return copier.finish();
+    }
+
+    /**
+     * Streams the selected rows into batched INSERTs of the same columns on the target shard.
+     */
+    private static class RowCopier implements RowCallbackHandler {
+
+        private final JdbcTemplate targetJdbc;
+        private final UserTable table;
+        private final List<Object[]> batch = new ArrayList<>(COPY_BATCH_SIZE);
+        private final List<String> columns = new ArrayList<>();
+        private String insertSql;
+        private int copied;
+
+        RowCopier(JdbcTemplate targetJdbc, UserTable table) {
+            this.targetJdbc = targetJdbc;
+            this.table = table;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (insertSql == null) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    if (!table.skippedColumns().contains(metaData.getColumnName(i))) {
+                        columns.add(metaData.getColumnName(i));
+                    }
+                }
+                insertSql = "INSERT INTO " + table.name() + " (" + String.join(", ", columns) + ") VALUES ("
+                        + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+            }
+
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                values[i] = rs.getObject(columns.get(i));
+            }
+            batch.add(values);
+            if (batch.size() == COPY_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        int finish() {
+            flush();
+            return copied;
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            targetJdbc.batchUpdate(insertSql, batch);
+            copied += batch.size();
+            batch.clear();
+        }
+    }
+
+    private record UserTable(String name, String userColumn, List<String> skippedColumns) {
+    }
+}
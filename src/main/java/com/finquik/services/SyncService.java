@@ -0,0 +1,28 @@
+package com.finquik.services;
+
+import com.finquik.DTOs.SyncResponse;
+
+import java.time.LocalDateTime;
+
+public interface SyncService {
+
+    /**
+     * Retrieves the accounts, categories and transactions of the authenticated user created or updated since a cursor,
+     * plus the tombstones of the ones deleted since then, a page at a time in the order they changed.
+     *
+     * @param userId The ID of the authenticated user.
+     * @param cursor Opaque cursor returned by the previous sync, or null to download everything.
+     * @param limit  The maximum number of changes to return, capped at 1000.
+     * @return The changes and the cursor to use on the next sync.
+     */
+    SyncResponse getChangesSince(Long userId, String cursor, int limit);
+
+    /**
+     * Deletes the tombstones of the current shard recorded before an instant. Clients whose cursor is older than
+     * the last purged tombstone start over on their next sync.
+     *
+     * @param before The instant before which tombstones are deleted.
+     * @return The number of deleted tombstones.
+     */
+    long purgeTombstones(LocalDateTime before);
+}
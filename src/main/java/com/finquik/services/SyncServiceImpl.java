@@ -0,0 +1,126 @@
+package com.finquik.services;
+
+import com.finquik.DTOs.DeletedRecordResponse;
+import com.finquik.DTOs.SyncResponse;
+import com.finquik.common.pagination.SyncCursor;
+import com.finquik.common.sharding.ShardContext;
+import com.finquik.models.Account;
+import com.finquik.models.Category;
+import com.finquik.models.DeletedRecord;
+import com.finquik.models.Transaction;
+import com.finquik.repositories.AccountRepository;
+import com.finquik.repositories.CategoryRepository;
+import com.finquik.repositories.DeletedRecordRepository;
+import com.finquik.repositories.SyncRepository;
+import com.finquik.repositories.TransactionRepository;
+import com.finquik.services.mappers.ResponseMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class SyncServiceImpl implements SyncService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final Comparator<Position> CHANGE_ORDER =
+            Comparator.comparingLong(Position::xid).thenComparingLong(Position::seq);
+
+    private final AccountRepository accountRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionRepository transactionRepository;
+    private final DeletedRecordRepository deletedRecordRepository;
+    private final SyncRepository syncRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public SyncResponse getChangesSince(Long userId, String cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        int shard = Objects.requireNonNullElse(ShardContext.currentShard(), ShardContext.DIRECTORY_SHARD);
+
+        // 1. Fix the horizon before reading anything: every change below it is committed and visible from here on
+        long horizon = syncRepository.currentHorizon();
+
+        // 2. Resolve where the previous sync stopped, starting over when it can't be resumed
+        SyncCursor from = cursor != null && !cursor.isBlank() ? SyncCursor.decode(cursor) : SyncCursor.initial(shard);
+        boolean reset = !from.isInitial()
+                && (from.shard() != shard || from.xid() < syncRepository.tombstonesPurgedBefore());
+        if (reset) {
+            from = SyncCursor.initial(shard);
+        }
+
+        // 3. Read up to a page of each kind of change, and keep the first page of all of them in change order
+        Limit fetched = Limit.of(pageSize + 1);
+        List<Account> accounts = accountRepository.findChangedSince(userId, from.xid(), from.seq(), horizon, fetched);
+        List<Category> categories = categoryRepository.findChangedSince(userId, from.xid(), from.seq(), horizon, fetched);
+        List<Transaction> transactions = transactionRepository.findChangedSince(userId, from.xid(), from.seq(), horizon, fetched);
+        List<DeletedRecord> deleted = deletedRecordRepository.findChangedSince(userId, from.xid(), from.seq(), horizon, fetched);
+
+        List<Position> positions = new ArrayList<>();
+        accounts.forEach(account -> positions.add(new Position(account.getChangeXid(), account.getChangeSeq())));
+        categories.forEach(category -> positions.add(new Position(category.getChangeXid(), category.getChangeSeq())));
+        transactions.forEach(transaction -> positions.add(new Position(transaction.getChangeXid(), transaction.getChangeSeq())));
+        deleted.forEach(record -> positions.add(new Position(record.getChangeXid(), record.getChangeSeq())));
+        positions.sort(CHANGE_ORDER);
+
+        boolean hasMore = positions.size() > pageSize;
+        SyncCursor next;
+        if (hasMore) {
+            Position last = positions.get(pageSize - 1);
+            next = new SyncCursor(shard, last.xid(), last.seq());
+        } else if (horizon > from.xid()) {
+            // Everything below the horizon was read, changes of the transactions still running come next
+            next = new SyncCursor(shard, horizon, 0);
+        } else {
+            next = from;
+        }
+
+        return SyncResponse.builder()
+                .accounts(upTo(accounts, next, Account::getChangeXid, Account::getChangeSeq).stream()
+                        .map(ResponseMapper::toAccountResponse)
+                        .collect(Collectors.toList()))
+                .categories(upTo(categories, next, Category::getChangeXid, Category::getChangeSeq).stream()
+                        .map(ResponseMapper::toCategoryResponse)
+                        .collect(Collectors.toList()))
+                .transactions(upTo(transactions, next, Transaction::getChangeXid, Transaction::getChangeSeq).stream()
+                        .map(ResponseMapper::toTransactionResponse)
+                        .collect(Collectors.toList()))
+                .deleted(upTo(deleted, next, DeletedRecord::getChangeXid, DeletedRecord::getChangeSeq).stream()
+                        .map(record -> DeletedRecordResponse.builder()
+                                .entityType(record.getEntityType())
+                                .id(record.getEntityId())
+                                .deletedAt(record.getDeletedAt())
+                                .build())
+                        .collect(Collectors.toList()))
+                .nextCursor(next.encode())
+                .hasMore(hasMore)
+                .reset(reset)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public long purgeTombstones(LocalDateTime before) {
+        return syncRepository.purgeTombstones(before);
+    }
+
+    // The rows changed at or before the next cursor, the rest is left for the next page
+    private static <T> List<T> upTo(List<T> rows, SyncCursor next, Function<T, Long> xid, Function<T, Long> seq) {
+        Position limit = new Position(next.xid(), next.seq());
+        return rows.stream()
+                .filter(row -> CHANGE_ORDER.compare(new Position(xid.apply(row), seq.apply(row)), limit) <= 0)
+                .toList();
+    }
+
+    private record Position(long xid, long seq) {
+    }
+}
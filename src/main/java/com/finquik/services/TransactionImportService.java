@@ -0,0 +1,23 @@
+package com.finquik.services;
+
+import com.finquik.DTOs.TransactionImportMapping;
+import com.finquik.DTOs.TransactionImportResponse;
+
+import java.io.InputStream;
+
+public interface TransactionImportService {
+
+    /**
+     * Imports the transactions of a bank statement in CSV format into an account of the authenticated user.
+     * The file is read as a stream and valid rows are bulk loaded, so its size is only limited by the upload limits.
+     * Categories are resolved by name among the user's categories, and their type gives the sign of each amount.
+     * Invalid rows are skipped and reported, the rest are imported together and the account balance is updated once.
+     *
+     * @param userId      The ID of the authenticated user.
+     * @param accountId   The ID of the account the statement belongs to.
+     * @param mapping     How the columns of the file map to transaction fields.
+     * @param inputStream The content of the file.
+     * @return The number of imported and rejected rows, and the errors of the rejected ones.
+     */
+    TransactionImportResponse importTransactions(Long userId, Long accountId, TransactionImportMapping mapping, InputStream inputStream);
+}
@@ -0,0 +1,193 @@
+package com.finquik.services;
+
+import com.finquik.DTOs.TransactionImportError;
+import com.finquik.DTOs.TransactionImportMapping;
+import com.finquik.DTOs.TransactionImportResponse;
+import com.finquik.common.exceptions.BadRequestException;
+import com.finquik.common.exceptions.ResourceNotFoundException;
+import com.finquik.common.utils.SearchTextNormalizer;
+import com.finquik.models.Category;
+import com.finquik.repositories.AccountRepository;
+import com.finquik.repositories.CategoryRepository;
+import com.finquik.repositories.TransactionImportRepository;
+import com.finquik.services.cache.UserDataVersionTracker;
+import com.finquik.services.imports.CsvRecordReader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class TransactionImportServiceImpl implements TransactionImportService {
+
+    // Only the first errors are reported, so a completely wrong file doesn't produce a response as big as itself
+    static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private final AccountRepository accountRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionImportRepository transactionImportRepository;
+    private final UserDataVersionTracker userDataVersionTracker;
+
+    @Override
+    @Transactional
+    public TransactionImportResponse importTransactions(Long userId, Long accountId, TransactionImportMapping mapping, InputStream inputStream) {
+
+        // 1. Validate the account and load the user's categories by normalized name
+        if (accountRepository.findByIdAndUserId(accountId, userId).isEmpty()) {
+            throw new ResourceNotFoundException("Account", "id", accountId);
+        }
+        Map<String, List<Category>> categoriesByName = categoryRepository.findByUserId(userId).stream()
+                .collect(Collectors.groupingBy(category -> SearchTextNormalizer.normalize(category.getName())));
+
+        // 2. Locate the mapped columns in the header
+        CsvRecordReader reader = new CsvRecordReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8), mapping.getDelimiter());
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new BadRequestException("The uploaded file is empty");
+        }
+        int dateIndex = requiredColumn(header, mapping.getDateColumn());
+        int amountIndex = requiredColumn(header, mapping.getAmountColumn());
+        int categoryIndex = requiredColumn(header, mapping.getCategoryColumn());
+        int descriptionIndex = mapping.getDescriptionColumn() != null ? columnIndex(header, mapping.getDescriptionColumn()) : -1;
+        DateTimeFormatter dateFormatter = dateFormatter(mapping.getDateFormat());
+        LocalDate today = LocalDate.now();
+
+        // 3. Stream the valid rows into the staging table, collecting the errors of the rest
+        long stagedCount = 0;
+        long rejectedCount = 0;
+        List<TransactionImportError> errors = new ArrayList<>();
+
+        try (TransactionImportRepository.StagingWriter staging = transactionImportRepository.openStaging()) {
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                long line = reader.getRecordLineNumber();
+                try {
+                    LocalDate transactionDate = parseDate(field(fields, dateIndex), dateFormatter, today);
+                    BigDecimal amount = parseAmount(field(fields, amountIndex));
+                    Category category = resolveCategory(categoriesByName, field(fields, categoryIndex));
+                    String description = descriptionIndex >= 0 ? emptyToNull(field(fields, descriptionIndex)) : null;
+                    if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+                        throw new IllegalArgumentException("Description can be up to " + MAX_DESCRIPTION_LENGTH + " characters long");
+                    }
+
+                    staging.write(line, category.getId(), amount, description,
+                            SearchTextNormalizer.normalize(description), transactionDate);
+                    stagedCount++;
+                } catch (IllegalArgumentException ex) {
+                    rejectedCount++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(TransactionImportError.builder().line(line).error(ex.getMessage()).build());
+                    }
+                }
+            }
+        }
+
+        // 4. Merge the staged rows into transactions, the account balance and the rollups with set-based statements
+        long importedCount = 0;
+        if (stagedCount > 0) {
+            importedCount = transactionImportRepository.insertStagedTransactions(userId, accountId);
+            transactionImportRepository.applyStagedBalanceDelta(accountId);
+            accountRepository.evictFromCache(accountId);
+            transactionImportRepository.applyStagedRollups(userId, accountId);
+            userDataVersionTracker.bump(userId);
+        }
+
+        return TransactionImportResponse.builder()
+                .importedCount(importedCount)
+                .rejectedCount(rejectedCount)
+                .errors(errors)
+                .errorsTruncated(rejectedCount > errors.size())
+                .build();
+    }
+
+    private int requiredColumn(List<String> header, String name) {
+        int index = columnIndex(header, name);
+        if (index < 0) {
+            throw new BadRequestException("Column '" + name + "' not found in the header of the uploaded file");
+        }
+        return index;
+    }
+
+    private int columnIndex(List<String> header, String name) {
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).trim().equalsIgnoreCase(name.trim())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private DateTimeFormatter dateFormatter(String pattern) {
+        try {
+            return DateTimeFormatter.ofPattern(pattern, Locale.ROOT);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid date format: '" + pattern + "'");
+        }
+    }
+
+    private String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    private LocalDate parseDate(String value, DateTimeFormatter formatter, LocalDate today) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Transaction date cannot be empty");
+        }
+        try {
+            LocalDate date = LocalDate.parse(value, formatter);
+            if (date.isAfter(today)) {
+                throw new IllegalArgumentException("Transaction date cannot be in the future");
+            }
+            return date;
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid transaction date: '" + value + "'");
+        }
+    }
+
+    // Statements usually sign expenses as negative amounts; the sign comes from the category type, so the absolute value is kept
+    private BigDecimal parseAmount(String value) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Amount cannot be empty");
+        }
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(value).abs();
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid amount: '" + value + "'");
+        }
+        if (amount.signum() == 0 || amount.scale() > 4) {
+            throw new IllegalArgumentException("Invalid amount: '" + value + "'");
+        }
+        return amount;
+    }
+
+    private Category resolveCategory(Map<String, List<Category>> categoriesByName, String name) {
+        List<Category> matches = categoriesByName.get(SearchTextNormalizer.normalize(name));
+        if (matches == null) {
+            throw new IllegalArgumentException("Category not found with name : '" + name + "'");
+        }
+        if (matches.size() > 1) {
+            throw new IllegalArgumentException("Category name '" + name + "' is used by more than one category");
+        }
+        return matches.get(0);
+    }
+
+    private String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,33 @@
+package com.finquik.services;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface TransactionPartitionService {
+
+    /**
+     * Creates the missing monthly partitions of transactions from the current month up to a given one.
+     *
+     * @param lastMonth The last month that must have a partition.
+     * @return The months whose partitions were created.
+     */
+    List<YearMonth> createPartitionsUntil(YearMonth lastMonth);
+
+    /**
+     * Finds the months older than a given one that still have their own partition, in the order they must be archived.
+     *
+     * @param firstHotMonth The oldest month that must stay out of the archive.
+     * @return The months to archive, oldest first.
+     */
+    List<YearMonth> findPartitionsToArchive(YearMonth firstHotMonth);
+
+    /**
+     * Moves the transactions of a month into the archived partition of its year. They're still returned by every
+     * transaction query whose date range reaches them, and keep counting in the balances and summaries, but queries
+     * of recent dates skip them. Writes to that month are rejected while its rows are copied.
+     *
+     * @param month The month to archive, the oldest one returned by {@link #findPartitionsToArchive(YearMonth)}.
+     * @return Whether the month was archived, false when another instance is archiving.
+     */
+    boolean archivePartition(YearMonth month);
+}
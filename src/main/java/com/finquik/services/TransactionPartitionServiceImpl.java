@@ -0,0 +1,66 @@
+package com.finquik.services;
+
+import com.finquik.repositories.TransactionPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionPartitionServiceImpl implements TransactionPartitionService {
+
+    private final TransactionPartitionRepository partitionRepository;
+
+    @Value("${app.archive.tablespace:}")
+    private String archiveTablespace;
+
+    @Override
+    @Transactional
+    public List<YearMonth> createPartitionsUntil(YearMonth lastMonth) {
+        // Instances starting together would otherwise all try to create the same partitions
+        partitionRepository.lockPartitionMaintenance();
+        Set<YearMonth> existing = new HashSet<>(partitionRepository.findMonthlyPartitions());
+        List<YearMonth> created = new ArrayList<>();
+
+        for (YearMonth month = YearMonth.now(); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            if (!existing.contains(month) && partitionRepository.createMonthlyPartition(month)) {
+                created.add(month);
+            }
+        }
+
+        if (!created.isEmpty()) {
+            log.info("Created transaction partitions for {}", created);
+        }
+        return created;
+    }
+
+    // Not read-only, so it reads the catalog of the primary and never that of a lagging replica
+    @Override
+    @Transactional
+    public List<YearMonth> findPartitionsToArchive(YearMonth firstHotMonth) {
+        return partitionRepository.findMonthlyPartitions().stream()
+                .filter(month -> month.isBefore(firstHotMonth))
+                .toList();
+    }
+
+    // Not transactional: the copy and the swap are committed separately, so transactions is only locked for the swap
+    @Override
+    public boolean archivePartition(YearMonth month) {
+        // The rows don't change, only where they're stored, so cached reads stay valid
+        if (!partitionRepository.archiveMonthlyPartition(month, archiveTablespace)) {
+            log.info("Skipped archiving the transactions of {}, another archive is running", month);
+            return false;
+        }
+        log.info("Archived the transactions of {}", month);
+        return true;
+    }
+}
@@ -0,0 +1,56 @@
+package com.finquik.services;
+
+import com.finquik.DTOs.TransactionSummaryDTO;
+import com.finquik.models.Transaction;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TransactionRollupService {
+
+    /**
+     * Adds the amount of a new (or updated) transaction to its monthly rollup.
+     * Must run in the same database transaction as the write of the transaction itself.
+     *
+     * @param transaction The transaction, with its account and category set.
+     */
+    void recordTransaction(Transaction transaction);
+
+    /**
+     * Adds the amounts of many new transactions to their monthly rollups, with one upsert per affected rollup row.
+     *
+     * @param transactions The transactions, with their account and category set.
+     */
+    void recordTransactions(List<Transaction> transactions);
+
+    /**
+     * Removes the amount of a deleted (or about to be updated) transaction from its monthly rollup.
+     * Must be called before the account, category, amount or date of the transaction are changed.
+     *
+     * @param transaction The transaction, with its account and category set.
+     */
+    void revertTransaction(Transaction transaction);
+
+    /**
+     * Calculates the total income and expenses of a user between two optional dates (both inclusive).
+     * Whole months are read from the rollups, only the partial months at the edges of the range scan raw transactions.
+     *
+     * @param userId    The ID of the user.
+     * @param startDate Optional start date of the range.
+     * @param endDate   Optional end date of the range.
+     * @return A DTO containing the total income and expenses.
+     */
+    TransactionSummaryDTO getSummary(Long userId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Recomputes every rollup row from the raw transactions.
+     */
+    void rebuildAll();
+
+    /**
+     * Recomputes the rollup rows of a single user from the raw transactions.
+     *
+     * @param userId The ID of the user.
+     */
+    void rebuildForUser(Long userId);
+}
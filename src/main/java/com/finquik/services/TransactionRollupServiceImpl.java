@@ -0,0 +1,147 @@
+package com.finquik.services;
+
+import com.finquik.DTOs.TransactionSummaryDTO;
+import com.finquik.models.CategoryType;
+import com.finquik.models.Transaction;
+import com.finquik.models.TransactionRollupId;
+import com.finquik.repositories.TransactionRepository;
+import com.finquik.repositories.TransactionRollupRepository;
+import com.finquik.services.cache.UserDataVersionTracker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionRollupServiceImpl implements TransactionRollupService {
+
+    // Bounds used when the summary range is open on one side
+    private static final LocalDate MIN_DATE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private final TransactionRollupRepository rollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserDataVersionTracker userDataVersionTracker;
+
+    @Override
+    @Transactional
+    public void recordTransaction(Transaction transaction) {
+        applyDelta(rollupIdOf(transaction), transaction.getCategory().getType(), transaction.getAmount(), 1);
+    }
+
+    @Override
+    @Transactional
+    public void recordTransactions(List<Transaction> transactions) {
+        Map<TransactionRollupId, RollupDelta> deltas = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            deltas.computeIfAbsent(rollupIdOf(transaction), id -> new RollupDelta(transaction.getCategory().getType()))
+                    .add(transaction.getAmount());
+        }
+        deltas.forEach((id, delta) -> applyDelta(id, delta.type, delta.amount, delta.count));
+    }
+
+    @Override
+    @Transactional
+    public void revertTransaction(Transaction transaction) {
+        applyDelta(rollupIdOf(transaction), transaction.getCategory().getType(), transaction.getAmount().negate(), -1);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionSummaryDTO getSummary(Long userId, LocalDate startDate, LocalDate endDate) {
+        LocalDate from = startDate != null ? startDate : MIN_DATE;
+        LocalDate to = endDate != null ? endDate : MAX_DATE;
+
+        LocalDate firstFullMonth = from.getDayOfMonth() == 1 ? from : from.withDayOfMonth(1).plusMonths(1);
+        LocalDate lastFullMonthEnd = to.equals(YearMonth.from(to).atEndOfMonth()) ? to : to.withDayOfMonth(1).minusDays(1);
+
+        // The range doesn't cover any whole month, so there is nothing to read from the rollups
+        if (firstFullMonth.isAfter(lastFullMonthEnd)) {
+            return rawSummary(userId, from, to);
+        }
+
+        TransactionSummaryDTO summary = rollupRepository
+                .sumByUserIdAndMonthRange(userId, firstFullMonth, lastFullMonthEnd.withDayOfMonth(1))
+                .orElse(TransactionSummaryDTO.empty());
+
+        // Partial months at the edges of the range come from the raw transactions
+        if (from.isBefore(firstFullMonth)) {
+            summary = summary.plus(rawSummary(userId, from, firstFullMonth.minusDays(1)));
+        }
+        if (to.isAfter(lastFullMonthEnd)) {
+            summary = summary.plus(rawSummary(userId, lastFullMonthEnd.plusDays(1), to));
+        }
+        return summary;
+    }
+
+    @Override
+    @Transactional
+    public void rebuildAll() {
+        rollupRepository.lockTable();
+        rollupRepository.deleteAllRows();
+        int rows = rollupRepository.insertFromTransactions(null);
+        userDataVersionTracker.bumpAll();
+        log.info("Rebuilt transaction rollups from scratch: {} rows", rows);
+    }
+
+    @Override
+    @Transactional
+    public void rebuildForUser(Long userId) {
+        rollupRepository.lockTable();
+        rollupRepository.deleteAllRowsByUserId(userId);
+        int rows = rollupRepository.insertFromTransactions(userId);
+        userDataVersionTracker.bump(userId);
+        log.info("Rebuilt transaction rollups of user {}: {} rows", userId, rows);
+    }
+
+    private TransactionSummaryDTO rawSummary(Long userId, LocalDate from, LocalDate to) {
+        return transactionRepository.getTransactionSummaryByUserIdAndDateRange(userId, from, to)
+                .orElse(TransactionSummaryDTO.empty());
+    }
+
+    private void applyDelta(TransactionRollupId id, CategoryType type, BigDecimal amount, long count) {
+        boolean income = type == CategoryType.INCOME;
+        rollupRepository.applyDelta(
+                id.getUserId(),
+                id.getAccountId(),
+                id.getCategoryId(),
+                id.getMonthStart(),
+                income ? amount : BigDecimal.ZERO,
+                income ? BigDecimal.ZERO : amount,
+                income ? count : 0,
+                income ? 0 : count);
+    }
+
+    private TransactionRollupId rollupIdOf(Transaction transaction) {
+        return new TransactionRollupId(
+                transaction.getUser().getId(),
+                transaction.getAccount().getId(),
+                transaction.getCategory().getId(),
+                transaction.getTransactionDate().withDayOfMonth(1));
+    }
+
+    // Accumulates the amounts of the transactions that fall in the same rollup row
+    private static class RollupDelta {
+        private final CategoryType type;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private long count;
+
+        RollupDelta(CategoryType type) {
+            this.type = type;
+        }
+
+        void add(BigDecimal value) {
+            amount = amount.add(value);
+            count++;
+        }
+    }
+}
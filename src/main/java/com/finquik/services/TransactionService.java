@@ -1,13 +1,21 @@
 package com.finquik.services;
 
+import com.finquik.DTOs.AnalyticsBucket;
+import com.finquik.DTOs.AnalyticsGroupBy;
+import com.finquik.DTOs.AnalyticsResponse;
+import com.finquik.DTOs.CursorPageResponse;
+import com.finquik.DTOs.ExportFormat;
+import com.finquik.DTOs.TransactionBatchResponse;
 import com.finquik.DTOs.TransactionRequest;
+import com.finquik.DTOs.TransactionFilter;
 import com.finquik.DTOs.TransactionResponse;
 import com.finquik.DTOs.TransactionSummaryDTO;
-import com.finquik.models.CategoryType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.List;
 
 public interface TransactionService {
 
@@ -15,55 +23,102 @@ public interface TransactionService {
      * Creates a new transaction for the authenticated user and updates the corresponding account balance.
      *
      * @param transactionRequest DTO with the transaction details.
-     * @param userEmail The email of the authenticated user.
+     * @param userId The ID of the authenticated user.
      * @return The created transaction information.
      */
-    TransactionResponse createTransaction(TransactionRequest transactionRequest, String userEmail);
+    TransactionResponse createTransaction(TransactionRequest transactionRequest, Long userId);
+
+    /**
+     * Creates many transactions at once for the authenticated user.
+     * Items referencing an account or category that doesn't exist (or isn't owned by the user) are rejected,
+     * the rest are inserted together and each affected account balance is updated once with the summed delta.
+     *
+     * @param transactionRequests DTOs with the details of each transaction.
+     * @param userId The ID of the authenticated user.
+     * @return The per-item results, in the same order as the requests.
+     */
+    TransactionBatchResponse createTransactionsBatch(List<TransactionRequest> transactionRequests, Long userId);
 
     /**
      * Retrieves a paginated and filtered list of transactions for the authenticated user.
      *
-     * @param userEmail The email of the authenticated user.
+     * @param userId The ID of the authenticated user.
      * @param pageable  Pagination information (page number, size, sort).
-     * @param startDate Optional start date for the filter range.
-     * @param endDate   Optional end date for the filter range.
-     * @param accountId Optional account ID to filter by.
-     * @param categoryId Optional category ID to filter by.
-     * @param type      Optional transaction type (INCOME or EXPENSE) to filter by.
+     * @param filter    Optional filters (date range, account, category, type and description).
      * @return A page of transaction information.
      */
-    Page<TransactionResponse> getTransactions(String userEmail, Pageable pageable, LocalDate startDate, LocalDate endDate, Long accountId, Long categoryId, CategoryType type, String description);
+    Page<TransactionResponse> getTransactions(Long userId, Pageable pageable, TransactionFilter filter);
+
+    /**
+     * Retrieves a filtered page of transactions for the authenticated user using keyset pagination,
+     * ordered by transaction date and ID descending. Unlike {@link #getTransactions}, no count query is run
+     * and the cost of a page doesn't depend on how deep the user has scrolled.
+     *
+     * @param userId The ID of the authenticated user.
+     * @param cursor    Opaque cursor returned by the previous page, or null for the first page.
+     * @param size      Maximum number of transactions to return.
+     * @param filter    Optional filters (date range, account, category, type and description).
+     * @return A page of transaction information with the cursor of the next page.
+     */
+    CursorPageResponse<TransactionResponse> getTransactionsByCursor(Long userId, String cursor, int size, TransactionFilter filter);
+
+    /**
+     * Writes every transaction of the authenticated user matching the filters to the output stream.
+     * Rows are streamed from the database and written one by one, so memory usage doesn't depend on the export size.
+     *
+     * @param userId       The ID of the authenticated user.
+     * @param filter       Optional filters (date range, account, category, type and description).
+     * @param format       The format of the exported file.
+     * @param outputStream The stream to write the export to.
+     */
+    void exportTransactions(Long userId, TransactionFilter filter, ExportFormat format, OutputStream outputStream);
+
+    /**
+     * Aggregates the transactions of the authenticated user matching the filters into a time series,
+     * grouped by time bucket and by category, account or type. The aggregation runs in the database.
+     *
+     * @param userId The ID of the authenticated user.
+     * @param bucket    The size of the time buckets.
+     * @param groupBy   The dimension to group by inside each bucket.
+     * @param filter    Optional filters (date range, account, category, type and description).
+     * @return The aggregated series.
+     */
+    AnalyticsResponse getAnalytics(Long userId, AnalyticsBucket bucket, AnalyticsGroupBy groupBy, TransactionFilter filter);
 
     /**
      * Retrieves a single transaction by its ID, ensuring it belongs to the authenticated user.
      *
      * @param transactionId The ID of the transaction to retrieve.
-     * @param userEmail The email of the authenticated user.
+     * @param userId The ID of the authenticated user.
      * @return The transaction information.
      */
-    TransactionResponse getTransactionById(Long transactionId, String userEmail);
+    TransactionResponse getTransactionById(Long transactionId, Long userId);
 
     /**
      * Updates an existing transaction and recalculates the corresponding account balance.
      *
      * @param transactionId The ID of the transaction to update.
      * @param transactionRequest DTO with the new transaction details.
-     * @param userEmail The email of the authenticated user.
+     * @param userId The ID of the authenticated user.
      * @return The updated transaction information.
      */
-    TransactionResponse updateTransaction(Long transactionId, TransactionRequest transactionRequest, String userEmail);
+    TransactionResponse updateTransaction(Long transactionId, TransactionRequest transactionRequest, Long userId);
 
     /**
      * Deletes a transaction by its ID and reverts its impact on the corresponding account balance.
      *
      * @param transactionId The ID of the transaction to delete.
-     * @param userEmail The email of the authenticated user.
+     * @param userId The ID of the authenticated user.
      */
-    void deleteTransaction(Long transactionId, String userEmail);
+    void deleteTransaction(Long transactionId, Long userId);
 
     /**
-     * Retrieves a summary of total income and expenses for the currently authenticated user.
+     * Retrieves a summary of total income and expenses for the authenticated user,
+     * optionally restricted to a date range.
+     * @param userId    The ID of the authenticated user.
+     * @param startDate Optional start date for the summary range.
+     * @param endDate   Optional end date for the summary range.
      * @return A DTO containing the total income and expenses.
      */
-    TransactionSummaryDTO getTransactionSummaryForCurrentUser();
+    TransactionSummaryDTO getTransactionSummary(Long userId, LocalDate startDate, LocalDate endDate);
 }
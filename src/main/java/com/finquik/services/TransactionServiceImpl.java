@@ -1,47 +1,65 @@
 package com.finquik.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.finquik.common.exceptions.ResourceNotFoundException;
+import com.finquik.common.pagination.TransactionCursor;
+import com.finquik.common.retry.RetryOnOptimisticLock;
+import com.finquik.config.CacheConfig;
 import com.finquik.DTOs.*;
 import com.finquik.models.*;
 import com.finquik.repositories.AccountRepository;
 import com.finquik.repositories.CategoryRepository;
+import com.finquik.repositories.DeletedRecordRepository;
 import com.finquik.repositories.TransactionRepository;
 import com.finquik.repositories.UserRepository;
 import com.finquik.repositories.specifications.TransactionSpecification;
+import com.finquik.services.cache.UserDataVersionTracker;
+import com.finquik.services.mappers.ResponseMapper;
+import com.finquik.services.export.TransactionExportWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import com.finquik.security.CustomUserDetails;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("transactionDate"), Sort.Order.desc("id"));
+    // Associations read by ResponseMapper.toTransactionResponse, fetched together with the transactions
+    private static final List<String> FETCHED_ASSOCIATIONS = List.of("account", "category");
+
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
     private final AccountRepository accountRepository;
     private final CategoryRepository categoryRepository;
+    private final TransactionRollupService transactionRollupService;
+    private final DeletedRecordRepository deletedRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final UserDataVersionTracker userDataVersionTracker;
 
     @Override
     @Transactional
-    public TransactionResponse createTransaction(TransactionRequest transactionRequest, String userEmail) {
-
-        // 1. Get the user, account, and category based on the request
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", userEmail));
+    public TransactionResponse createTransaction(TransactionRequest transactionRequest, Long userId) {
 
-        Account account = accountRepository.findByIdAndUser(transactionRequest.getAccountId(), user)
+        // 1. Get the account and category based on the request (from the second-level cache when possible)
+        Account account = accountRepository.findCachedByIdAndUserId(transactionRequest.getAccountId(), userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account", "id", transactionRequest.getAccountId()));
 
-        Category category = categoryRepository.findByIdAndUser(transactionRequest.getCategoryId(), user)
+        Category category = categoryRepository.findCachedByIdAndUserId(transactionRequest.getCategoryId(), userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", transactionRequest.getCategoryId()));
 
         // 2. Create the transaction entity
@@ -50,200 +68,266 @@ public class TransactionServiceImpl implements TransactionService {
                 .description(transactionRequest.getDescription())
                 .iconName(transactionRequest.getIconName())
                 .transactionDate(transactionRequest.getTransactionDate())
-                .user(user)
+                .user(userRepository.getReferenceById(userId))
                 .account(account)
                 .category(category)
                 .build();
 
-        // 3. Update the account balance
-        BigDecimal newBalance;
-        if (category.getType() == CategoryType.INCOME) {
-            newBalance = account.getCurrentBalance().add(transaction.getAmount());
-        } else { // EXPENSE
-            newBalance = account.getCurrentBalance().subtract(transaction.getAmount());
-        }
-        account.setCurrentBalance(newBalance);
-
+        // 3. Save the transaction and apply its amount to the account balance atomically
+        BigDecimal delta = category.getType().signedAmount(transaction.getAmount());
         Transaction savedTransaction = transactionRepository.save(transaction);
+        // Keep the loaded entity in line for the response; the column itself is never written from it
+        account.setCurrentBalance(accountRepository.applyBalanceDelta(account.getId(), delta));
+
+        // 4. Add the transaction to its monthly rollup
+        transactionRollupService.recordTransaction(savedTransaction);
+        userDataVersionTracker.bump(userId);
 
         // 5. Map the saved transaction to a response DTO
-        return mapToTransactionResponse(savedTransaction);
+        return ResponseMapper.toTransactionResponse(savedTransaction);
+    }
+
+    @Override
+    @Transactional
+    public TransactionBatchResponse createTransactionsBatch(List<TransactionRequest> transactionRequests, Long userId) {
+
+        // The owner is only referenced by its ID, so an uninitialized proxy is enough
+        User user = userRepository.getReferenceById(userId);
+
+        // 1. Validate every referenced account and category with one query each
+        Set<Long> accountIds = transactionRequests.stream()
+                .map(TransactionRequest::getAccountId)
+                .collect(Collectors.toSet());
+        Set<Long> categoryIds = transactionRequests.stream()
+                .map(TransactionRequest::getCategoryId)
+                .collect(Collectors.toSet());
+
+        Map<Long, Account> accounts = accountRepository.findByIdInAndUserId(accountIds, userId).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        Map<Long, Category> categories = categoryRepository.findByIdInAndUserId(categoryIds, userId).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        // 2. Build the transactions to insert and accumulate one balance delta per account
+        TransactionBatchItemResult[] results = new TransactionBatchItemResult[transactionRequests.size()];
+        List<Transaction> transactionsToInsert = new ArrayList<>();
+        List<Integer> insertedIndexes = new ArrayList<>();
+        Map<Long, BigDecimal> balanceDeltas = new HashMap<>();
+
+        for (int i = 0; i < transactionRequests.size(); i++) {
+            TransactionRequest request = transactionRequests.get(i);
+            Account account = accounts.get(request.getAccountId());
+            Category category = categories.get(request.getCategoryId());
+
+            if (account == null) {
+                results[i] = rejectedItem(i, "Account", request.getAccountId());
+                continue;
+            }
+            if (category == null) {
+                results[i] = rejectedItem(i, "Category", request.getCategoryId());
+                continue;
+            }
+
+            transactionsToInsert.add(Transaction.builder()
+                    .amount(request.getAmount())
+                    .description(request.getDescription())
+                    .iconName(request.getIconName())
+                    .transactionDate(request.getTransactionDate())
+                    .user(user)
+                    .account(account)
+                    .category(category)
+                    .build());
+            insertedIndexes.add(i);
+
+            balanceDeltas.merge(account.getId(), category.getType().signedAmount(request.getAmount()), BigDecimal::add);
+        }
+
+        // 3. Insert all valid transactions in one JDBC batch and apply a single balance update per account
+        transactionRepository.insertAll(transactionsToInsert);
+        balanceDeltas.forEach(accountRepository::applyBalanceDelta);
+        transactionRollupService.recordTransactions(transactionsToInsert);
+        userDataVersionTracker.bump(userId);
+
+        for (int i = 0; i < transactionsToInsert.size(); i++) {
+            int index = insertedIndexes.get(i);
+            results[index] = TransactionBatchItemResult.builder()
+                    .index(index)
+                    .status(TransactionBatchItemResult.Status.CREATED)
+                    .id(transactionsToInsert.get(i).getId())
+                    .build();
+        }
+
+        return TransactionBatchResponse.builder()
+                .createdCount(transactionsToInsert.size())
+                .rejectedCount(transactionRequests.size() - transactionsToInsert.size())
+                .results(Arrays.asList(results))
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<TransactionResponse> getTransactions(String userEmail, Pageable pageable, LocalDate startDate, LocalDate endDate, Long accountId, Long categoryId, CategoryType type, String description) {
+    // Only the first page is cached, it's the one reloaded by the dashboard
+    @Cacheable(cacheNames = CacheConfig.TRANSACTION_FIRST_PAGE_CACHE,
+            key = "@userDataVersionTracker.key(#userId, #pageable, #filter)",
+            condition = "#pageable.pageNumber == 0")
+    public Page<TransactionResponse> getTransactions(Long userId, Pageable pageable, TransactionFilter filter) {
 
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", userEmail));
+        Specification<Transaction> spec = TransactionSpecification.fromFilter(userId, filter);
 
-        // 1. La construcción de la especificación dinámica es la misma
-        Specification<Transaction> spec = TransactionSpecification.hasUser(user);
-        if (startDate != null) {
-            spec = spec.and(TransactionSpecification.isAfterOrEqualTo(startDate));
-        }
-        if (endDate != null) {
-            spec = spec.and(TransactionSpecification.isBeforeOrEqualTo(endDate));
-        }
-        if (accountId != null) {
-            spec = spec.and(TransactionSpecification.hasAccountId(accountId));
-        }
-        if (categoryId != null) {
-            spec = spec.and(TransactionSpecification.hasCategoryId(categoryId));
-        }
-        if (type != null) {
-            spec = spec.and(TransactionSpecification.hasType(type));
-        }
+        Page<Transaction> transactionPage = transactionRepository.findAll(spec, pageable);
+
+        return transactionPage.map(ResponseMapper::toTransactionResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransactionResponse> getTransactionsByCursor(Long userId, String cursor, int size, TransactionFilter filter) {
 
-        if (description != null && !description.isBlank()) {
-            spec = spec.and(TransactionSpecification.descriptionContains(description));
+        int pageSize = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+
+        Specification<Transaction> spec = TransactionSpecification.fromFilter(userId, filter);
+        if (cursor != null && !cursor.isBlank()) {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            spec = spec.and(TransactionSpecification.isBeforeKeyset(position.transactionDate(), position.id()));
         }
 
-        Page<Transaction> transactionPage = transactionRepository.findAll(spec, pageable);
+        // One extra row is fetched to know whether there is a next page without running a count query
+        List<Transaction> transactions = transactionRepository.findBy(spec, query -> query
+                .sortBy(KEYSET_SORT)
+                .limit(pageSize + 1)
+                .project(FETCHED_ASSOCIATIONS)
+                .all());
+
+        boolean hasNext = transactions.size() > pageSize;
+        List<Transaction> pageContent = hasNext ? transactions.subList(0, pageSize) : transactions;
+        String nextCursor = hasNext ? TransactionCursor.of(pageContent.get(pageSize - 1)).encode() : null;
+
+        List<TransactionResponse> content = pageContent.stream()
+                .map(ResponseMapper::toTransactionResponse)
+                .collect(Collectors.toList());
 
-        return transactionPage.map(this::mapToTransactionResponse);
+        return new CursorPageResponse<>(content, pageSize, nextCursor, hasNext);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public TransactionResponse getTransactionById(Long transactionId, String userEmail) {
+    public void exportTransactions(Long userId, TransactionFilter filter, ExportFormat format, OutputStream outputStream) {
 
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", userEmail));
+        Specification<Transaction> spec = TransactionSpecification.fromFilter(userId, filter);
 
-        Transaction transaction = transactionRepository.findByIdAndUser(transactionId, user)
+        try (TransactionExportWriter writer = new TransactionExportWriter(format, outputStream, objectMapper)) {
+            transactionRepository.forEachMatching(spec, EXPORT_FETCH_SIZE,
+                    transaction -> writer.write(ResponseMapper.toTransactionResponse(transaction)));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AnalyticsResponse getAnalytics(Long userId, AnalyticsBucket bucket, AnalyticsGroupBy groupBy, TransactionFilter filter) {
+
+        Specification<Transaction> spec = TransactionSpecification.fromFilter(userId, filter);
+
+        return AnalyticsResponse.builder()
+                .bucket(bucket)
+                .groupBy(groupBy)
+                .series(transactionRepository.aggregate(spec, bucket, groupBy))
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionResponse getTransactionById(Long transactionId, Long userId) {
+
+        Transaction transaction = transactionRepository.findByIdAndUserId(transactionId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction", "id", transactionId));
 
-        return mapToTransactionResponse(transaction);
+        return ResponseMapper.toTransactionResponse(transaction);
     }
 
     @Override
     @Transactional
-    public TransactionResponse updateTransaction(Long transactionId, TransactionRequest transactionRequest, String userEmail) {
-
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", userEmail));
+    @RetryOnOptimisticLock
+    public TransactionResponse updateTransaction(Long transactionId, TransactionRequest transactionRequest, Long userId) {
 
-        Transaction transactionToUpdate = transactionRepository.findByIdAndUser(transactionId, user)
+        Transaction transactionToUpdate = transactionRepository.findByIdAndUserId(transactionId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction", "id", transactionId));
 
-        Account originalAccount = transactionToUpdate.getAccount();
-        BigDecimal originalAmount = transactionToUpdate.getAmount();
-        CategoryType originalType = transactionToUpdate.getCategory().getType();
+        Long originalAccountId = transactionToUpdate.getAccount().getId();
+        BigDecimal originalDelta = transactionToUpdate.getCategory().getType().signedAmount(transactionToUpdate.getAmount());
 
-        // 1. Revert the impact of the original transaction on the account balance.
-        if (originalType == CategoryType.INCOME) {
-            originalAccount.setCurrentBalance(originalAccount.getCurrentBalance().subtract(originalAmount));
-        } else { // EXPENSE
-            originalAccount.setCurrentBalance(originalAccount.getCurrentBalance().add(originalAmount));
-        }
+        // Remove the original values from the monthly rollup before they are overwritten
+        transactionRollupService.revertTransaction(transactionToUpdate);
 
-        // 2. Obtain the new account and category entities safely.
-        Account targetAccount = accountRepository.findByIdAndUser(transactionRequest.getAccountId(), user)
+        // 1. Obtain the new account and category entities safely (from the second-level cache when possible).
+        Account targetAccount = accountRepository.findCachedByIdAndUserId(transactionRequest.getAccountId(), userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account", "id", transactionRequest.getAccountId()));
-        Category targetCategory = categoryRepository.findByIdAndUser(transactionRequest.getCategoryId(), user)
+        Category targetCategory = categoryRepository.findCachedByIdAndUserId(transactionRequest.getCategoryId(), userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", transactionRequest.getCategoryId()));
 
-        // If the account has changed, we need to save the original account with its reverted balance.
-        if (!originalAccount.getId().equals(targetAccount.getId())) {
-            accountRepository.save(originalAccount);
-        }
-
-        // 3. Update the transaction with the new data.
+        // 2. Update the transaction with the new data.
         transactionToUpdate.setAmount(transactionRequest.getAmount());
         transactionToUpdate.setDescription(transactionRequest.getDescription());
         transactionToUpdate.setTransactionDate(transactionRequest.getTransactionDate());
         transactionToUpdate.setAccount(targetAccount);
         transactionToUpdate.setCategory(targetCategory);
 
-        // 4. Apply the new impact on the target account balance.
-        BigDecimal newAmount = transactionToUpdate.getAmount();
-        if (targetCategory.getType() == CategoryType.INCOME) {
-            targetAccount.setCurrentBalance(targetAccount.getCurrentBalance().add(newAmount));
-        } else { // EXPENSE
-            targetAccount.setCurrentBalance(targetAccount.getCurrentBalance().subtract(newAmount));
-        }
-        accountRepository.save(targetAccount);
-
-        // 5. Save the updated transaction
+        // 3. Save the updated transaction; the version check rejects concurrent edits of the same row
         Transaction updatedTransaction = transactionRepository.save(transactionToUpdate);
+        transactionRollupService.recordTransaction(updatedTransaction);
+        userDataVersionTracker.bump(userId);
+
+        // 4. Move the balance impact with atomic deltas, a single net delta when the account is unchanged
+        BigDecimal newDelta = targetCategory.getType().signedAmount(updatedTransaction.getAmount());
+        BigDecimal targetDelta;
+        if (originalAccountId.equals(targetAccount.getId())) {
+            targetDelta = newDelta.subtract(originalDelta);
+        } else {
+            accountRepository.applyBalanceDelta(originalAccountId, originalDelta.negate());
+            targetDelta = newDelta;
+        }
+        targetAccount.setCurrentBalance(accountRepository.applyBalanceDelta(targetAccount.getId(), targetDelta));
 
-        return mapToTransactionResponse(updatedTransaction);
+        return ResponseMapper.toTransactionResponse(updatedTransaction);
     }
 
     @Override
     @Transactional
-    public void deleteTransaction(Long transactionId, String userEmail) {
+    @RetryOnOptimisticLock
+    public void deleteTransaction(Long transactionId, Long userId) {
 
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "email", userEmail));
-
-        Transaction transactionToDelete = transactionRepository.findByIdAndUser(transactionId, user)
+        Transaction transactionToDelete = transactionRepository.findByIdAndUserId(transactionId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction", "id", transactionId));
 
-        Account account = transactionToDelete.getAccount();
-        BigDecimal amount = transactionToDelete.getAmount();
-        CategoryType type = transactionToDelete.getCategory().getType();
-
-        // 1. Revert the impact of the transaction on the account balance.
-        if (type == CategoryType.INCOME) {
-            // If an income transaction is deleted, subtract the amount from the balance.
-            account.setCurrentBalance(account.getCurrentBalance().subtract(amount));
-        } else { // EXPENSE
-            // If an expense transaction is deleted, add the amount back to the balance.
-            account.setCurrentBalance(account.getCurrentBalance().add(amount));
-        }
-
-        // 3. Save the account with the updated balance.
-        accountRepository.save(account);
+        // 1. Revert the impact of the transaction on the account balance with an atomic delta.
+        BigDecimal delta = transactionToDelete.getCategory().getType().signedAmount(transactionToDelete.getAmount());
+        accountRepository.applyBalanceDelta(transactionToDelete.getAccount().getId(), delta.negate());
 
-        // 4. Delete the transaction from the repository.
+        // 2. Delete the transaction from the repository and its monthly rollup.
+        transactionRollupService.revertTransaction(transactionToDelete);
         transactionRepository.delete(transactionToDelete);
+
+        // Leave a tombstone so incremental syncs learn about the deletion
+        deletedRecordRepository.save(DeletedRecord.builder()
+                .userId(userId)
+                .entityType(SyncEntityType.TRANSACTION)
+                .entityId(transactionId)
+                .build());
+        userDataVersionTracker.bump(userId);
     }
 
     @Override
-    public TransactionSummaryDTO getTransactionSummaryForCurrentUser() {
-        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-
-        if (!(principal instanceof CustomUserDetails customUserDetails)) {
-            throw new UsernameNotFoundException("User details not found in security context");
-        }
-
-        User currentUser = customUserDetails.getUser();
-
-        return transactionRepository.getTransactionSummaryByUserId(currentUser.getId())
-                .orElse(new TransactionSummaryDTO(BigDecimal.ZERO, BigDecimal.ZERO));
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.TRANSACTION_SUMMARY_CACHE,
+            key = "@userDataVersionTracker.key(#userId, #startDate, #endDate)")
+    public TransactionSummaryDTO getTransactionSummary(Long userId, LocalDate startDate, LocalDate endDate) {
+        return transactionRollupService.getSummary(userId, startDate, endDate);
     }
 
-
-    // Auxiliary methods to map the entity to the response DTO
-    private TransactionResponse mapToTransactionResponse(Transaction transaction) {
-
-        AccountResponse accountResponse = AccountResponse.builder()
-                .id(transaction.getAccount().getId())
-                .name(transaction.getAccount().getName())
-                .type(transaction.getAccount().getType())
-                .currency(transaction.getAccount().getCurrency())
-                .currentBalance(transaction.getAccount().getCurrentBalance())
-                .createdAt(transaction.getAccount().getCreatedAt())
-                .updatedAt(transaction.getAccount().getUpdatedAt())
-                .build();
-
-        CategoryResponse categoryResponse = CategoryResponse.builder()
-                .id(transaction.getCategory().getId())
-                .name(transaction.getCategory().getName())
-                .type(transaction.getCategory().getType())
-                .build();
-
-        return TransactionResponse.builder()
-                .id(transaction.getId())
-                .amount(transaction.getAmount())
-                .description(transaction.getDescription())
-                .iconName(transaction.getIconName()) 
-                .transactionDate(transaction.getTransactionDate())
-                .createdAt(transaction.getCreatedAt())
-                .account(accountResponse)
-                .category(categoryResponse)
+    private TransactionBatchItemResult rejectedItem(int index, String resourceName, Long resourceId) {
+        return TransactionBatchItemResult.builder()
+                .index(index)
+                .status(TransactionBatchItemResult.Status.REJECTED)
+                .error(String.format("%s not found with id : '%s'", resourceName, resourceId))
                 .build();
     }
 }
+
@@ -1,7 +1,9 @@
 package com.finquik.services;
 
+import com.finquik.common.sharding.ShardContext;
 import com.finquik.models.User;
 import com.finquik.repositories.UserRepository;
+import com.finquik.repositories.UserShardDirectory;
 import com.finquik.security.CustomUserDetails;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,10 +16,14 @@ import org.springframework.stereotype.Service;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserShardDirectory userShardDirectory;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(username)
+        // Logins aren't authenticated yet, so the shard of the user comes from the directory
+        int shard = userShardDirectory.findShardByEmail(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
+        User user = ShardContext.callInShard(shard, () -> userRepository.findByEmail(username))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
 
         return new CustomUserDetails(user);
@@ -3,44 +3,74 @@ package com.finquik.services;
 import com.finquik.DTOs.UserRegistrationRequest;
 import com.finquik.DTOs.UserResponse;
 import com.finquik.common.exceptions.EmailAlreadyExistsException;
+import com.finquik.common.sharding.ShardContext;
 import com.finquik.models.User;
 import com.finquik.models.Category;
 import com.finquik.models.CategoryType;
 import com.finquik.repositories.CategoryRepository;
 import com.finquik.repositories.UserRepository;
+import com.finquik.repositories.UserShardDirectory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
 import com.finquik.common.exceptions.ResourceNotFoundException;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    // Name of the income and the expense category created for every new user
+    static final String DEFAULT_CATEGORY_NAME = "Uncategorized";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final CategoryRepository categoryRepository;
+    private final UserShardDirectory userShardDirectory;
+    private final PlatformTransactionManager transactionManager;
 
     @Override
-    @Transactional
     public UserResponse registerUser(UserRegistrationRequest registrationRequest) {
+        String email = registrationRequest.getEmail();
 
-        if (userRepository.existsByEmail(registrationRequest.getEmail())) {
-            throw new EmailAlreadyExistsException("Error: Email '" + registrationRequest.getEmail() + "' is already taken!");
+        // 1. Emails are unique across shards, so they're checked in the directory
+        if (userShardDirectory.findShardByEmail(email).isPresent()) {
+            throw new EmailAlreadyExistsException("Error: Email '" + email + "' is already taken!");
         }
 
-        User user = User.builder()
-                .firstName(registrationRequest.getFirstName())
-                .lastName(registrationRequest.getLastName())
-                .email(registrationRequest.getEmail())
-                .password(passwordEncoder.encode(registrationRequest.getPassword()))
-                .build();
+        // 2. Store the user, with its default categories, in the shard picked from its email
+        int shard = ShardContext.shardForEmail(email);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        User savedUser = ShardContext.callInShard(shard, () -> transactionTemplate.execute(status -> {
+            User user = User.builder()
+                    .firstName(registrationRequest.getFirstName())
+                    .lastName(registrationRequest.getLastName())
+                    .email(email)
+                    .password(passwordEncoder.encode(registrationRequest.getPassword()))
+                    .build();
 
-        User savedUser = userRepository.save(user);
+            User saved = userRepository.save(user);
 
-        // creates default categories (one for income and one for expenses) for the new user
-        createDefaultCategoriesForUser(savedUser);
+            // creates default categories (one for income and one for expenses) for the new user
+            createDefaultCategoriesForUser(saved);
+            return saved;
+        }));
+
+        // 3. Publish it in the directory, undoing the insert if the same email was registered concurrently
+        try {
+            userShardDirectory.register(savedUser.getId(), email, shard);
+        } catch (DuplicateKeyException e) {
+            ShardContext.runInShard(shard, () -> transactionTemplate.executeWithoutResult(status -> {
+                categoryRepository.deleteAllInBatch(categoryRepository.findByUserId(savedUser.getId()));
+                userRepository.deleteById(savedUser.getId());
+            }));
+            throw new EmailAlreadyExistsException("Error: Email '" + email + "' is already taken!", e);
+        }
 
         return UserResponse.builder()
                 .id(savedUser.getId())
@@ -69,18 +99,18 @@ public class UserServiceImpl implements UserService {
     // Auxiliary method to create default categories for a new user
     private void createDefaultCategoriesForUser(User user) {
         Category uncategorizedExpense = Category.builder()
-                .name("Uncategorized")
+                .name(DEFAULT_CATEGORY_NAME)
                 .type(CategoryType.EXPENSE)
                 .user(user)
                 .build();
 
         Category uncategorizedIncome = Category.builder()
-                .name("Uncategorized")
+                .name(DEFAULT_CATEGORY_NAME)
                 .type(CategoryType.INCOME)
                 .user(user)
                 .build();
 
-        categoryRepository.save(uncategorizedExpense);
-        categoryRepository.save(uncategorizedIncome);
+        // Saved together, so both inserts go out in one JDBC batch
+        categoryRepository.saveAll(List.of(uncategorizedExpense, uncategorizedIncome));
     }
 }
\ No newline at end of file
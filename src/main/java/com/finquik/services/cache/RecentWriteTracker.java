@@ -0,0 +1,77 @@
+package com.finquik.services.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * Lets clients that committed a write during the last {@code app.datasource.read-your-writes-window} read from the
+ * primary database instead of a replica that may not have replayed the write yet, so users always read their own
+ * writes. The time of the write travels with the client: responses to a write carry it in the
+ * {@value #LAST_WRITE_HEADER} header, and clients send it back on their next requests, to whichever instance.
+ */
+@Component
+public class RecentWriteTracker {
+
+    public static final String LAST_WRITE_HEADER = "X-Last-Write";
+
+    // Request attribute of the write committed by the current request, whose later reads see it too
+    private static final String LAST_WRITE_ATTRIBUTE = RecentWriteTracker.class.getName() + ".lastWrite";
+
+    private final Duration window;
+
+    public RecentWriteTracker(@Value("${app.datasource.read-your-writes-window:5s}") Duration window) {
+        this.window = window;
+    }
+
+    /**
+     * Records a committed write of the current request, returning its time to the client. Does nothing outside
+     * of a request.
+     */
+    public void recordWrite() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        attributes.getRequest().setAttribute(LAST_WRITE_ATTRIBUTE, now);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            response.setHeader(LAST_WRITE_HEADER, Long.toString(now));
+        }
+    }
+
+    /**
+     * @return Whether the client of the current request committed a write within the window, false outside of a request.
+     */
+    public boolean wroteRecently() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        Long lastWrite = request.getAttribute(LAST_WRITE_ATTRIBUTE) instanceof Long recorded
+                ? recorded
+                : parseLastWrite(request.getHeader(LAST_WRITE_HEADER));
+        if (lastWrite == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        // Times further ahead than the window are ignored, so a client can't pin itself to the primary for good
+        return lastWrite > now - window.toMillis() && lastWrite < now + window.toMillis();
+    }
+
+    private static Long parseLastWrite(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
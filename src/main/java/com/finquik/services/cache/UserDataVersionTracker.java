@@ -0,0 +1,85 @@
+package com.finquik.services.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps a data version per user (users.data_version) that every write path moves forward in its transaction.
+ * Cached reads include the current version in their key, so a write makes all of the user's previous
+ * entries unreachable without having to know which caches or keys they live in, on every instance.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDataVersionTracker {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RecentWriteTracker recentWriteTracker;
+
+    /**
+     * Returns the current data version of a user, as committed in the database. Read in a read-only transaction,
+     * or the caller's one, so with replicas it comes from the replica that serves the other reads of the request:
+     * data read after it is then at least as recent as the version.
+     *
+     * @param userId The ID of the user.
+     * @return The version to include in cache keys, 0 for an unknown user.
+     */
+    @Transactional(readOnly = true)
+    public long currentVersion(Long userId) {
+        return jdbcTemplate.queryForList("SELECT data_version FROM users WHERE id = ?", Long.class, userId)
+                .stream().findFirst().orElse(0L);
+    }
+
+    /**
+     * Builds a cache key made of the user ID, its current data version and the remaining method arguments.
+     * Meant to be used from {@code @Cacheable} key expressions, which are evaluated inside the method's transaction.
+     *
+     * @param userId The ID of the user.
+     * @param arguments The remaining arguments that identify the cached result.
+     * @return The cache key.
+     */
+    public Object key(Long userId, Object... arguments) {
+        Object[] elements = new Object[arguments.length + 2];
+        elements[0] = userId;
+        elements[1] = currentVersion(userId);
+        System.arraycopy(arguments, 0, elements, 2, arguments.length);
+        return new SimpleKey(elements);
+    }
+
+    /**
+     * Moves the data version of a user forward in the current transaction, so it commits or rolls back with the
+     * write. Once it commits, the write is also recorded in the {@link RecentWriteTracker}, so the client's next
+     * reads see it.
+     *
+     * @param userId The ID of the user whose data changed.
+     */
+    public void bump(Long userId) {
+        jdbcTemplate.update("UPDATE users SET data_version = data_version + 1 WHERE id = ?", userId);
+        runAfterCommit(recentWriteTracker::recordWrite);
+    }
+
+    /**
+     * Moves the data version of every user of the current shard forward in the current transaction,
+     * for writes that aren't scoped to a single user.
+     */
+    public void bumpAll() {
+        jdbcTemplate.update("UPDATE users SET data_version = data_version + 1");
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
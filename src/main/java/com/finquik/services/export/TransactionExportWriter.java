@@ -0,0 +1,96 @@
+package com.finquik.services.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finquik.DTOs.ExportFormat;
+import com.finquik.DTOs.TransactionResponse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes exported transactions one by one to an output stream in the requested format.
+ * Nothing is accumulated in memory besides the write buffer.
+ */
+public class TransactionExportWriter implements AutoCloseable {
+
+    private static final List<String> CSV_HEADER = List.of(
+            "id", "transactionDate", "amount", "type", "category", "account", "currency", "description", "iconName", "createdAt");
+
+    private final ExportFormat format;
+    private final Writer writer;
+    private final ObjectMapper objectMapper;
+
+    public TransactionExportWriter(ExportFormat format, OutputStream outputStream, ObjectMapper objectMapper) {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.objectMapper = objectMapper;
+        if (format == ExportFormat.CSV) {
+            writeLine(String.join(",", CSV_HEADER));
+        }
+    }
+
+    public void write(TransactionResponse transaction) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                writeLine(objectMapper.writeValueAsString(transaction));
+            } else {
+                writeLine(toCsvRow(transaction));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Flushes the pending rows. The underlying stream is left open, it belongs to the servlet container.
+     */
+    @Override
+    public void close() {
+        try {
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeLine(String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private String toCsvRow(TransactionResponse transaction) {
+        return String.join(",",
+                csvValue(transaction.getId()),
+                csvValue(transaction.getTransactionDate()),
+                csvValue(transaction.getAmount() != null ? transaction.getAmount().toPlainString() : null),
+                csvValue(transaction.getCategory().getType()),
+                csvValue(transaction.getCategory().getName()),
+                csvValue(transaction.getAccount().getName()),
+                csvValue(transaction.getAccount().getCurrency()),
+                csvValue(transaction.getDescription()),
+                csvValue(transaction.getIconName()),
+                csvValue(transaction.getCreatedAt()));
+    }
+
+    // Quotes the value only when it contains a separator, a quote or a line break (RFC 4180)
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
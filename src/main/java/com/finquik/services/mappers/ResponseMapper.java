@@ -0,0 +1,54 @@
+package com.finquik.services.mappers;
+
+import com.finquik.DTOs.AccountResponse;
+import com.finquik.DTOs.CategoryResponse;
+import com.finquik.DTOs.TransactionResponse;
+import com.finquik.models.Account;
+import com.finquik.models.Category;
+import com.finquik.models.Transaction;
+
+/**
+ * Maps entities to the response DTOs returned by the API, shared by every service that exposes them.
+ */
+public final class ResponseMapper {
+
+    private ResponseMapper() {
+    }
+
+    public static AccountResponse toAccountResponse(Account account) {
+        return AccountResponse.builder()
+                .id(account.getId())
+                .name(account.getName())
+                .type(account.getType())
+                .currentBalance(account.getCurrentBalance())
+                .currency(account.getCurrency())
+                .createdAt(account.getCreatedAt())
+                .updatedAt(account.getUpdatedAt())
+                .build();
+    }
+
+    public static CategoryResponse toCategoryResponse(Category category) {
+        return CategoryResponse.builder()
+                .id(category.getId())
+                .name(category.getName())
+                .type(category.getType())
+                .iconName(category.getIconName())
+                .build();
+    }
+
+    /**
+     * Maps a transaction together with its account and category, which must be loaded (or loadable) by the caller.
+     */
+    public static TransactionResponse toTransactionResponse(Transaction transaction) {
+        return TransactionResponse.builder()
+                .id(transaction.getId())
+                .amount(transaction.getAmount())
+                .description(transaction.getDescription())
+                .iconName(transaction.getIconName())
+                .transactionDate(transaction.getTransactionDate())
+                .createdAt(transaction.getCreatedAt())
+                .account(toAccountResponse(transaction.getAccount()))
+                .category(toCategoryResponse(transaction.getCategory()))
+                .build();
+    }
+}
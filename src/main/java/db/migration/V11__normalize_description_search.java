@@ -0,0 +1,53 @@
+package db.migration;
+
+import com.finquik.common.utils.SearchTextNormalizer;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Objects;
+
+/**
+ * Recomputes the search text of the transactions back-filled in SQL by V1__baseline.sql with
+ * {@link SearchTextNormalizer}, which every write uses. unaccent() and the Java normalization disagree on
+ * characters such as "ß", "æ" or ligatures, so the same description matched differently depending on when it was
+ * written. Only the rows whose value changes are updated, in batches, while the table is read with a cursor.
+ */
+public class V11__normalize_description_search extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT id, transaction_date, description, description_search FROM transactions");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE transactions SET description_search = ? WHERE id = ? AND transaction_date = ?")) {
+            // Streamed instead of loaded at once; the migration runs in a transaction, which the cursor needs
+            select.setFetchSize(BATCH_SIZE);
+            int pending = 0;
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    String normalized = SearchTextNormalizer.normalize(rows.getString("description"));
+                    if (Objects.equals(normalized, rows.getString("description_search"))) {
+                        continue;
+                    }
+                    update.setString(1, normalized);
+                    update.setLong(2, rows.getLong("id"));
+                    update.setDate(3, rows.getDate("transaction_date"));
+                    update.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        update.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+}
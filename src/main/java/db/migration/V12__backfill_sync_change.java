@@ -0,0 +1,79 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Back-fills the delta sync cursor added by V10__sync_change_sequence.sql on the rows written before it, then makes
+ * it NOT NULL. Rows are touched in batches of consecutive IDs, each committed on its own, so the history isn't
+ * rewritten in one long transaction holding its locks and WAL; the trigger of V10 assigns the values. The migration
+ * runs outside of a transaction and resumes where it stopped if interrupted.
+ * <p>
+ * NOT NULL is proven by a CHECK constraint added NOT VALID and validated without blocking writes; SET NOT NULL then
+ * relies on it instead of scanning the table under an exclusive lock.
+ */
+public class V12__backfill_sync_change extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final List<String> TABLES = List.of("accounts", "categories", "transactions", "deleted_records");
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        // Every statement commits on its own
+        connection.setAutoCommit(true);
+        for (String table : TABLES) {
+            backfill(connection, table);
+            setNotNull(connection, table);
+        }
+    }
+
+    private static void backfill(Connection connection, String table) throws SQLException {
+        try (PreparedStatement nextBatchEnd = connection.prepareStatement("SELECT max(id) FROM (SELECT id FROM " + table
+                     + " WHERE id > ? ORDER BY id LIMIT " + BATCH_SIZE + ") batch");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE " + table + " SET change_seq = NULL WHERE id > ? AND id <= ? AND change_xid IS NULL")) {
+            long batchStart = Long.MIN_VALUE;
+            while (true) {
+                nextBatchEnd.setLong(1, batchStart);
+                long batchEnd;
+                try (ResultSet rows = nextBatchEnd.executeQuery()) {
+                    rows.next();
+                    batchEnd = rows.getLong(1);
+                    if (rows.wasNull()) {
+                        return;
+                    }
+                }
+                update.setLong(1, batchStart);
+                update.setLong(2, batchEnd);
+                update.executeUpdate();
+                batchStart = batchEnd;
+            }
+        }
+    }
+
+    private static void setNotNull(Connection connection, String table) throws SQLException {
+        String constraint = table + "_sync_change_not_null";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + table + " DROP CONSTRAINT IF EXISTS " + constraint);
+            statement.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + constraint
+                    + " CHECK (change_xid IS NOT NULL AND change_seq IS NOT NULL) NOT VALID");
+            statement.execute("ALTER TABLE " + table + " VALIDATE CONSTRAINT " + constraint);
+            statement.execute("ALTER TABLE " + table
+                    + " ALTER COLUMN change_xid SET NOT NULL, ALTER COLUMN change_seq SET NOT NULL");
+            statement.execute("ALTER TABLE " + table + " DROP CONSTRAINT " + constraint);
+        }
+    }
+}
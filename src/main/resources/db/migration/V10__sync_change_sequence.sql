@@ -0,0 +1,55 @@
+-- Delta sync cursor assigned by the database (see SyncServiceImpl). Every insert and update of a synced row records
+-- the ID of its transaction and a sequence number, in the same statement. Clients resume from the last pair they
+-- received, and only rows of transactions older than every transaction still running are returned, so a row
+-- committed late is never skipped, whatever clock its timestamps came from.
+CREATE SEQUENCE IF NOT EXISTS sync_change_seq;
+
+CREATE FUNCTION set_sync_change() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    NEW.change_xid := pg_current_xact_id()::text::bigint;
+    NEW.change_seq := nextval('sync_change_seq');
+    RETURN NEW;
+END
+$$;
+
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS change_xid bigint;
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS change_seq bigint;
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS change_xid bigint;
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS change_seq bigint;
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS change_xid bigint;
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS change_seq bigint;
+ALTER TABLE deleted_records ADD COLUMN IF NOT EXISTS change_xid bigint;
+ALTER TABLE deleted_records ADD COLUMN IF NOT EXISTS change_seq bigint;
+
+-- Defined on the parent of the partitions, so new partitions get it too
+CREATE TRIGGER accounts_sync_change BEFORE INSERT OR UPDATE ON accounts
+    FOR EACH ROW EXECUTE FUNCTION set_sync_change();
+CREATE TRIGGER categories_sync_change BEFORE INSERT OR UPDATE ON categories
+    FOR EACH ROW EXECUTE FUNCTION set_sync_change();
+CREATE TRIGGER transactions_sync_change BEFORE INSERT OR UPDATE ON transactions
+    FOR EACH ROW EXECUTE FUNCTION set_sync_change();
+CREATE TRIGGER deleted_records_sync_change BEFORE INSERT OR UPDATE ON deleted_records
+    FOR EACH ROW EXECUTE FUNCTION set_sync_change();
+
+-- Existing rows are back-filled in batches by V12__backfill_sync_change, which then makes the columns NOT NULL
+
+DROP INDEX IF EXISTS idx_accounts_user_updated_at;
+DROP INDEX IF EXISTS idx_categories_user_updated_at;
+DROP INDEX IF EXISTS idx_transactions_user_updated_at;
+DROP INDEX IF EXISTS idx_deleted_records_user_deleted_at;
+CREATE INDEX IF NOT EXISTS idx_accounts_user_change ON accounts (user_id, change_xid, change_seq);
+CREATE INDEX IF NOT EXISTS idx_categories_user_change ON categories (user_id, change_xid, change_seq);
+CREATE INDEX IF NOT EXISTS idx_transactions_user_change ON transactions (user_id, change_xid, change_seq);
+CREATE INDEX IF NOT EXISTS idx_deleted_records_user_change ON deleted_records (user_id, change_xid, change_seq);
+-- Tombstones older than the retention are purged (see SyncRepository#purgeTombstones)
+CREATE INDEX IF NOT EXISTS idx_deleted_records_deleted_at ON deleted_records (deleted_at);
+
+-- Tombstones of transactions below this ID were purged: a client whose cursor is older may have missed deletes
+-- and has to sync everything again
+CREATE TABLE IF NOT EXISTS sync_state (
+    id                       boolean PRIMARY KEY DEFAULT true CHECK (id),
+    tombstones_purged_before bigint  NOT NULL DEFAULT 0
+);
+INSERT INTO sync_state DEFAULT VALUES ON CONFLICT DO NOTHING;
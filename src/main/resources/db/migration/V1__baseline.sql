@@ -0,0 +1,119 @@
+-- Baseline of the schema previously managed by Hibernate (ddl-auto=update) and the db/init scripts.
+-- Written to be idempotent: on a fresh database it creates everything, on an existing one (baselined at
+-- version 0) it only adds what is missing, so databases created by any earlier release end up identical.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- ----------------------------------------
+-- Tables
+-- ----------------------------------------
+CREATE TABLE IF NOT EXISTS users (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name varchar(255),
+    last_name  varchar(255),
+    email      varchar(255) NOT NULL UNIQUE,
+    password   varchar(255) NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6) NOT NULL
+);
+
+-- Accounts, categories and transactions get their IDs from the application (TimeOrderedIdGenerator)
+CREATE TABLE IF NOT EXISTS accounts (
+    id              bigint PRIMARY KEY,
+    user_id         bigint         NOT NULL REFERENCES users (id),
+    name            varchar(100)   NOT NULL,
+    type            varchar(50)    NOT NULL,
+    initial_balance numeric(19, 4) NOT NULL,
+    current_balance numeric(19, 4) NOT NULL,
+    currency        varchar(10)    NOT NULL,
+    version         bigint         NOT NULL DEFAULT 0,
+    created_at      timestamp(6)   NOT NULL,
+    updated_at      timestamp(6)   NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS categories (
+    id         bigint PRIMARY KEY,
+    user_id    bigint       NOT NULL REFERENCES users (id),
+    name       varchar(100) NOT NULL,
+    type       varchar(50)  NOT NULL,
+    icon_name  varchar(100),
+    version    bigint       NOT NULL DEFAULT 0,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id                 bigint PRIMARY KEY,
+    user_id            bigint         NOT NULL REFERENCES users (id),
+    account_id         bigint         NOT NULL REFERENCES accounts (id),
+    category_id        bigint         NOT NULL REFERENCES categories (id),
+    amount             numeric(19, 4) NOT NULL,
+    description        varchar(255),
+    description_search varchar(255),
+    icon_name          varchar(100),
+    transaction_date   date           NOT NULL,
+    attachment_url     varchar(255),
+    version            bigint         NOT NULL DEFAULT 0,
+    created_at         timestamp(6)   NOT NULL,
+    updated_at         timestamp(6)   NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS transaction_rollups (
+    user_id       bigint         NOT NULL,
+    account_id    bigint         NOT NULL,
+    category_id   bigint         NOT NULL,
+    month_start   date           NOT NULL,
+    income_total  numeric(19, 4) NOT NULL,
+    expense_total numeric(19, 4) NOT NULL,
+    income_count  bigint         NOT NULL,
+    expense_count bigint         NOT NULL,
+    PRIMARY KEY (user_id, account_id, category_id, month_start)
+);
+
+CREATE TABLE IF NOT EXISTS deleted_records (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     bigint       NOT NULL,
+    entity_type varchar(20)  NOT NULL,
+    entity_id   bigint       NOT NULL,
+    deleted_at  timestamp(6) NOT NULL
+);
+
+-- ----------------------------------------
+-- Columns added after the tables were first created by Hibernate
+-- ----------------------------------------
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS description_search varchar(255);
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS version bigint;
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS version bigint;
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS version bigint;
+
+UPDATE transactions
+SET description_search = regexp_replace(lower(unaccent(trim(description))), '\s+', ' ', 'g')
+WHERE description_search IS NULL
+  AND description IS NOT NULL;
+
+UPDATE accounts SET version = 0 WHERE version IS NULL;
+UPDATE categories SET version = 0 WHERE version IS NULL;
+UPDATE transactions SET version = 0 WHERE version IS NULL;
+ALTER TABLE accounts ALTER COLUMN version SET DEFAULT 0, ALTER COLUMN version SET NOT NULL;
+ALTER TABLE categories ALTER COLUMN version SET DEFAULT 0, ALTER COLUMN version SET NOT NULL;
+ALTER TABLE transactions ALTER COLUMN version SET DEFAULT 0, ALTER COLUMN version SET NOT NULL;
+
+-- Existing rows keep their IDs, the generated ones start far above any value the identity columns reached
+ALTER TABLE accounts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE categories ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+-- ----------------------------------------
+-- Indexes
+-- ----------------------------------------
+-- Trigram index scoped by user, serves LIKE '%text%' and 'text%' lookups on the normalized description
+CREATE INDEX IF NOT EXISTS idx_transactions_user_description_search
+    ON transactions USING gin (user_id, description_search gin_trgm_ops);
+
+-- Delta sync (changes of a user since a cursor)
+CREATE INDEX IF NOT EXISTS idx_accounts_user_updated_at ON accounts (user_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_categories_user_updated_at ON categories (user_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_transactions_user_updated_at ON transactions (user_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_deleted_records_user_deleted_at ON deleted_records (user_id, deleted_at);
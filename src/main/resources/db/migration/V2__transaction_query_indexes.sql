@@ -0,0 +1,22 @@
+-- Indexes for the filters of TransactionSpecification, the keyset pagination and the summary queries.
+-- Built CONCURRENTLY so existing databases keep accepting writes; Flyway runs this script outside a transaction.
+
+-- Every transaction query filters by user. Date range filters, the keyset order (transaction_date DESC, id DESC)
+-- and the partial-month summary query all use this one; the included columns make the summary an index-only scan.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_user_date_id
+    ON transactions (user_id, transaction_date DESC, id DESC) INCLUDE (amount, category_id, account_id);
+
+-- Account and category filters (optionally with a date range and in keyset order). They also serve
+-- the foreign key checks when accounts or categories are deleted.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_account_date_id
+    ON transactions (account_id, transaction_date DESC, id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_category_date_id
+    ON transactions (category_id, transaction_date DESC, id DESC);
+
+-- Category lists by type and the duplicate name check (user_id, type, name)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_categories_user_type_name
+    ON categories (user_id, type, name);
+
+-- Whole-month part of summaries, read from the rollups of a user by month range
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transaction_rollups_user_month
+    ON transaction_rollups (user_id, month_start) INCLUDE (income_total, expense_total);
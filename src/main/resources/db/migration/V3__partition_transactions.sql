@@ -0,0 +1,63 @@
+-- Converts transactions into a table range-partitioned by month on transaction_date.
+-- The rows are copied in this migration's transaction, so it holds a lock on transactions until it's done.
+-- Partitions are named transactions_pYYYY_MM, later months are created ahead of time by
+-- TransactionPartitionMaintenanceJob. Rows outside every monthly range land in transactions_default.
+
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+
+-- The primary key of a partitioned table must contain the partition key. IDs are still unique on their own,
+-- since they're generated by the application (TimeOrderedIdGenerator).
+CREATE TABLE transactions (
+    id                 bigint         NOT NULL,
+    user_id            bigint         NOT NULL REFERENCES users (id),
+    account_id         bigint         NOT NULL REFERENCES accounts (id),
+    category_id        bigint         NOT NULL REFERENCES categories (id),
+    amount             numeric(19, 4) NOT NULL,
+    description        varchar(255),
+    description_search varchar(255),
+    icon_name          varchar(100),
+    transaction_date   date           NOT NULL,
+    attachment_url     varchar(255),
+    version            bigint         NOT NULL DEFAULT 0,
+    created_at         timestamp(6)   NOT NULL,
+    updated_at         timestamp(6)   NOT NULL,
+    PRIMARY KEY (id, transaction_date)
+) PARTITION BY RANGE (transaction_date);
+
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+-- One partition per month from the oldest transaction up to three months from now
+DO $$
+DECLARE
+    month_start date := date_trunc('month', COALESCE((SELECT min(transaction_date) FROM transactions_unpartitioned),
+                                                     current_date))::date;
+    last_month  date := (date_trunc('month', current_date) + interval '3 months')::date;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       'transactions_p' || to_char(month_start, 'YYYY_MM'),
+                       month_start,
+                       (month_start + interval '1 month')::date);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO transactions (id, user_id, account_id, category_id, amount, description, description_search, icon_name,
+                          transaction_date, attachment_url, version, created_at, updated_at)
+SELECT id, user_id, account_id, category_id, amount, description, description_search, icon_name,
+       transaction_date, attachment_url, version, created_at, updated_at
+FROM transactions_unpartitioned;
+
+DROP TABLE transactions_unpartitioned;
+
+-- Indexes of V1 and V2, now defined on the partitioned table (every partition gets its own copy).
+-- Date filters prune whole partitions, these only need to narrow the rows inside the remaining ones.
+CREATE INDEX idx_transactions_user_description_search
+    ON transactions USING gin (user_id, description_search gin_trgm_ops);
+CREATE INDEX idx_transactions_user_updated_at ON transactions (user_id, updated_at);
+CREATE INDEX idx_transactions_user_date_id
+    ON transactions (user_id, transaction_date DESC, id DESC) INCLUDE (amount, category_id, account_id);
+CREATE INDEX idx_transactions_account_date_id ON transactions (account_id, transaction_date DESC, id DESC);
+CREATE INDEX idx_transactions_category_date_id ON transactions (category_id, transaction_date DESC, id DESC);
+
+ANALYZE transactions;
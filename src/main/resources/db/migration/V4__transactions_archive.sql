@@ -0,0 +1,27 @@
+-- Transactions older than the oldest monthly partition, e.g. from before transactions was partitioned.
+-- transactions_archive is a plain partition of transactions covering every date before that boundary, so queries
+-- whose date range doesn't reach that far prune it, and its rows keep counting in balances, rollups and single-row
+-- reads. Its range never changes: TransactionPartitionMaintenanceJob archives the months past the horizon into
+-- yearly partitions of transactions (transactions_yYYYY), next to it.
+DO $$
+DECLARE
+    boundary date;
+BEGIN
+    SELECT min(to_date(substr(c.relname, 15), 'YYYY_MM'))
+    INTO boundary
+    FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = 'transactions'::regclass
+      AND c.relname ~ '^transactions_p\d{4}_\d{2}$';
+
+    CREATE TABLE transactions_archive (LIKE transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS);
+
+    -- Rows older than every monthly partition were stored in the default partition of transactions
+    WITH moved AS (
+        DELETE FROM transactions_default WHERE transaction_date < boundary RETURNING *
+    )
+    INSERT INTO transactions_archive SELECT * FROM moved;
+
+    EXECUTE format('ALTER TABLE transactions ATTACH PARTITION transactions_archive FOR VALUES FROM (MINVALUE) TO (%L)',
+                   boundary);
+END $$;
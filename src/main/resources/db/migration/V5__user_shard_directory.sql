@@ -0,0 +1,15 @@
+-- User IDs are generated by the application (TimeOrderedIdGenerator) from now on, so they stay unique across shards
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+-- Shard of every user, read from the directory shard (0). The table exists on every shard but only that one uses it.
+CREATE TABLE IF NOT EXISTS user_shards (
+    user_id  bigint       PRIMARY KEY,
+    email    varchar(255) NOT NULL UNIQUE,
+    shard_id integer      NOT NULL
+);
+
+-- Users registered before sharding live in the original database, which becomes shard 0
+INSERT INTO user_shards (user_id, email, shard_id)
+SELECT id, email, 0
+FROM users
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,11 @@
+-- Trigger function TransactionPartitionRepository attaches to the partitions it's copying into an archived year,
+-- so that their rows can't change between the copy and the swap. Writes to those months fail fast (and can be
+-- retried) instead of being lost; the guarded partitions are dropped by the swap.
+CREATE FUNCTION reject_archiving_writes() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    RAISE EXCEPTION 'The transactions in % are being archived, retry in a moment', TG_TABLE_NAME
+        USING ERRCODE = 'lock_not_available';
+END
+$$;
@@ -0,0 +1,9 @@
+-- Node IDs of TimeOrderedIdGenerator, leased by the running instances, read from the directory shard (0) only.
+-- high_water_millis is the latest timestamp the node may have put in an ID: an instance whose clock is behind it
+-- could hand out IDs that were already issued, so it refuses to start.
+CREATE TABLE IF NOT EXISTS id_generator_nodes (
+    node_id           integer      PRIMARY KEY,
+    owner             varchar(255),
+    high_water_millis bigint       NOT NULL DEFAULT 0,
+    heartbeat_at      timestamptz
+);
@@ -0,0 +1,3 @@
+-- Version of all the data of a user, moved forward by every write in the same transaction (see UserDataVersionTracker).
+-- Stored with the user, so every instance sees the same version and it survives restarts.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS data_version bigint NOT NULL DEFAULT 0;
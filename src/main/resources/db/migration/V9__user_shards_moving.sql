@@ -0,0 +1,2 @@
+-- Set while the rebalancer moves the user to another shard, whose requests are rejected meanwhile
+ALTER TABLE user_shards ADD COLUMN IF NOT EXISTS moving boolean NOT NULL DEFAULT false;
@@ -0,0 +1,144 @@
+package com.finquik.common.ids;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest {
+
+    private static final long MAX_SAFE_JSON_INTEGER = (1L << 53) - 1;
+
+    @Test
+    void idsIncreaseEvenWhenTheClockGoesBack() {
+        AtomicLong clock = new AtomicLong(TimeOrderedIdGenerator.EPOCH_MILLIS + 1_000);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(3, clock::get);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 200; i++) {
+            if (i == 100) {
+                clock.addAndGet(-500);
+            }
+            long id = generator.nextId();
+            assertTrue(id > previous, "IDs must be strictly increasing");
+            previous = id;
+        }
+    }
+
+    @Test
+    void waitsForTheNextMillisecondInsteadOfRunningAheadOfTheClock() {
+        // Ticks one millisecond every 1000 reads
+        AtomicLong reads = new AtomicLong();
+        long start = TimeOrderedIdGenerator.EPOCH_MILLIS + 1_000;
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, () -> start + reads.incrementAndGet() / 1_000);
+
+        long previous = 0;
+        for (int i = 0; i < 2_000; i++) {
+            long id = generator.nextId();
+            long now = start + reads.get() / 1_000;
+            assertTrue(id > previous, "IDs must be strictly increasing");
+            assertTrue(timestampOf(id) <= now, "An ID must never carry a timestamp ahead of the clock");
+            previous = id;
+        }
+    }
+
+    @Test
+    void failsWhenTheClockWentBackTooFarToWait() {
+        AtomicLong clock = new AtomicLong(TimeOrderedIdGenerator.EPOCH_MILLIS + 10_000);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, clock::get);
+        for (int i = 0; i <= TimeOrderedIdGenerator.MAX_SEQUENCE; i++) {
+            generator.nextId();
+        }
+
+        clock.addAndGet(-(TimeOrderedIdGenerator.MAX_CLOCK_SETBACK_MILLIS + 1));
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void failsOnceTheLeaseIsPastItsDeadline() {
+        AtomicLong clock = new AtomicLong(TimeOrderedIdGenerator.EPOCH_MILLIS + 10_000);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, clock::get);
+        generator.renewLease(clock.get() + 1_000);
+        generator.nextId();
+
+        clock.addAndGet(1_000);
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        // A late renewal lets it generate again
+        generator.renewLease(clock.get() + 1_000);
+        generator.nextId();
+    }
+
+    @Test
+    void stopsForGoodOnceTheLeaseIsLost() {
+        AtomicLong clock = new AtomicLong(TimeOrderedIdGenerator.EPOCH_MILLIS + 10_000);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, clock::get);
+        generator.renewLease(clock.get() + 1_000);
+
+        generator.loseLease();
+        generator.renewLease(clock.get() + 1_000);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void highWaterMarkCoversTheLastId() {
+        AtomicLong clock = new AtomicLong(TimeOrderedIdGenerator.EPOCH_MILLIS + 10_000);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, clock::get);
+        long id = generator.nextId();
+
+        clock.addAndGet(-500);
+
+        assertEquals(timestampOf(id), generator.highWaterMillis());
+    }
+
+    @Test
+    void idsCarryTheNodeAndFitInAJsonSafeInteger() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(TimeOrderedIdGenerator.MAX_NODE_ID, System::currentTimeMillis);
+
+        long id = generator.nextId();
+        long node = (id >>> TimeOrderedIdGenerator.SEQUENCE_BITS) & TimeOrderedIdGenerator.MAX_NODE_ID;
+
+        assertEquals(TimeOrderedIdGenerator.MAX_NODE_ID, node);
+        assertTrue(id > 0 && id <= MAX_SAFE_JSON_INTEGER);
+    }
+
+    @Test
+    void concurrentCallersNeverGetTheSameId() throws InterruptedException {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, System::currentTimeMillis);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int idsPerThread = 50_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < idsPerThread; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator(-1, System::currentTimeMillis));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TimeOrderedIdGenerator(TimeOrderedIdGenerator.MAX_NODE_ID + 1, System::currentTimeMillis));
+    }
+
+    private static long timestampOf(long id) {
+        return (id >>> (TimeOrderedIdGenerator.NODE_BITS + TimeOrderedIdGenerator.SEQUENCE_BITS)) + TimeOrderedIdGenerator.EPOCH_MILLIS;
+    }
+}
@@ -0,0 +1,93 @@
+package com.finquik.config;
+
+import com.finquik.repositories.IdGeneratorNodeRepository;
+import com.finquik.repositories.IdGeneratorNodeRepository.NodeLease;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdGeneratorNodeLeaseTest {
+
+    private static final Duration LEASE_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(5);
+
+    private final IdGeneratorNodeRepository repository = mock(IdGeneratorNodeRepository.class);
+
+    @Test
+    void leasesTheLowestFreeNodeAndReleasesItWithTheReachedMark() {
+        when(repository.claim(eq(0), eq(15), anyString(), eq(LEASE_TIMEOUT))).thenReturn(Optional.of(new NodeLease(5, 0L)));
+        when(repository.heartbeat(eq(5), anyString(), anyLong())).thenReturn(true);
+        long start = System.currentTimeMillis();
+
+        try (IdGeneratorNodeLease lease = IdGeneratorNodeLease.acquire(repository, null, LEASE_TIMEOUT, HEARTBEAT_INTERVAL)) {
+            assertThat(lease.getGenerator().getNodeId()).isEqualTo(5);
+            lease.getGenerator().nextId();
+            // Reserved ahead of the clock until the next heartbeats
+            verify(repository).heartbeat(eq(5), anyString(), longThat(mark -> mark >= start + 2 * HEARTBEAT_INTERVAL.toMillis()));
+        }
+
+        verify(repository).release(eq(5), anyString(), longThat(mark -> mark >= start));
+    }
+
+    @Test
+    void stopsGeneratingWhenTheLeaseCantBeRenewedInTime() throws InterruptedException {
+        when(repository.claim(eq(0), eq(15), anyString(), any())).thenReturn(Optional.of(new NodeLease(5, 0L)));
+        when(repository.heartbeat(eq(5), anyString(), anyLong())).thenThrow(new IllegalStateException("Connection refused"));
+
+        try (IdGeneratorNodeLease lease = IdGeneratorNodeLease.acquire(
+                repository, null, Duration.ofMillis(300), Duration.ofMillis(100))) {
+            lease.getGenerator().nextId();
+
+            // Claimed, then never renewed: IDs stop once the timeout minus one interval has passed
+            Thread.sleep(300);
+            assertThatThrownBy(() -> lease.getGenerator().nextId())
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("renewed in time");
+        }
+    }
+
+    @Test
+    void refusesToStartWhenTheNodeIsTakenOverRightAway() {
+        when(repository.claim(eq(2), eq(2), anyString(), any())).thenReturn(Optional.of(new NodeLease(2, 0L)));
+        when(repository.heartbeat(eq(2), anyString(), anyLong())).thenReturn(false);
+
+        assertThatThrownBy(() -> IdGeneratorNodeLease.acquire(repository, 2, LEASE_TIMEOUT, HEARTBEAT_INTERVAL))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("taken over");
+    }
+
+    @Test
+    void refusesToStartWhileTheClockIsBehindTheHighWaterMark() {
+        long highWaterMillis = System.currentTimeMillis() + 60_000;
+        when(repository.claim(eq(2), eq(2), anyString(), any())).thenReturn(Optional.of(new NodeLease(2, highWaterMillis)));
+
+        assertThatThrownBy(() -> IdGeneratorNodeLease.acquire(repository, 2, LEASE_TIMEOUT, HEARTBEAT_INTERVAL))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("clock is behind");
+        // The lease is given back, keeping the mark
+        verify(repository).release(eq(2), anyString(), eq(highWaterMillis));
+        verify(repository, never()).heartbeat(eq(2), anyString(), anyLong());
+    }
+
+    @Test
+    void refusesANodeLeasedByAnotherInstance() {
+        when(repository.claim(eq(2), eq(2), anyString(), any())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> IdGeneratorNodeLease.acquire(repository, 2, LEASE_TIMEOUT, HEARTBEAT_INTERVAL))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.ids.node-id");
+    }
+}
@@ -0,0 +1,122 @@
+package com.finquik.config.datasource;
+
+import com.finquik.services.cache.RecentWriteTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final ReplicaLagMonitor lagMonitor = mock(ReplicaLagMonitor.class);
+    private final RecentWriteTracker recentWriteTracker = new RecentWriteTracker(Duration.ofMinutes(1));
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource = new ReplicaRoutingDataSource(mock(DataSource.class),
+                Map.of("replica-0", mock(DataSource.class), "replica-1", mock(DataSource.class)),
+                lagMonitor, recentWriteTracker);
+    }
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void spreadsReadsAcrossHealthyReplicas() {
+        when(lagMonitor.healthyReplicas()).thenReturn(List.of("replica-0", "replica-1"));
+
+        assertThat(List.of(
+                routingDataSource.determineCurrentLookupKey(),
+                routingDataSource.determineCurrentLookupKey(),
+                routingDataSource.determineCurrentLookupKey()))
+                .containsExactly("replica-0", "replica-1", "replica-0");
+    }
+
+    @Test
+    void skipsLaggingReplicas() {
+        when(lagMonitor.healthyReplicas()).thenReturn(List.of("replica-1"));
+
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-1");
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-1");
+    }
+
+    @Test
+    void keepsTheSameReplicaWithinARequest() {
+        when(lagMonitor.healthyReplicas()).thenReturn(List.of("replica-0", "replica-1"));
+
+        startRequest(null);
+        Object firstRead = routingDataSource.determineCurrentLookupKey();
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(firstRead);
+
+        // Even once it lags behind, until the request ends
+        when(lagMonitor.healthyReplicas()).thenReturn(List.of());
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(firstRead);
+
+        startRequest(null);
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY_KEY);
+    }
+
+    @Test
+    void fallsBackToThePrimaryWhenNoReplicaIsHealthy() {
+        when(lagMonitor.healthyReplicas()).thenReturn(List.of());
+
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY_KEY);
+    }
+
+    @Test
+    void sendsRequestsThatJustWroteToThePrimary() {
+        when(lagMonitor.healthyReplicas()).thenReturn(List.of("replica-0", "replica-1"));
+        MockHttpServletResponse writeResponse = startRequest(null);
+        recentWriteTracker.recordWrite();
+
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY_KEY);
+        assertThat(writeResponse.getHeader(RecentWriteTracker.LAST_WRITE_HEADER)).isNotNull();
+
+        // The next request of the same client carries the time of its write, any other doesn't
+        startRequest(writeResponse.getHeader(RecentWriteTracker.LAST_WRITE_HEADER));
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY_KEY);
+
+        startRequest(null);
+        assertThat(routingDataSource.determineCurrentLookupKey()).isNotEqualTo(ReplicaRoutingDataSource.PRIMARY_KEY);
+    }
+
+    @Test
+    void ignoresWritesOutsideTheWindow() {
+        when(lagMonitor.healthyReplicas()).thenReturn(List.of("replica-0"));
+        long now = System.currentTimeMillis();
+
+        startRequest(Long.toString(now - Duration.ofMinutes(2).toMillis()));
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-0");
+
+        startRequest(Long.toString(now + Duration.ofMinutes(2).toMillis()));
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-0");
+
+        startRequest("not-a-time");
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo("replica-0");
+    }
+
+    private MockHttpServletResponse startRequest(String lastWrite) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (lastWrite != null) {
+            request.addHeader(RecentWriteTracker.LAST_WRITE_HEADER, lastWrite);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        return response;
+    }
+}
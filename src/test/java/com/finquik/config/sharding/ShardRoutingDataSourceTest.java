@@ -0,0 +1,51 @@
+package com.finquik.config.sharding;
+
+import com.finquik.common.sharding.ShardContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ShardRoutingDataSourceTest {
+
+    private ShardRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        ShardContext.configureShardCount(2);
+        routingDataSource = new ShardRoutingDataSource(List.of(mock(DataSource.class), mock(DataSource.class)));
+    }
+
+    @AfterEach
+    void resetShardCount() {
+        ShardContext.configureShardCount(1);
+    }
+
+    @Test
+    void usesTheSelectedShard() {
+        routingDataSource.onApplicationEvent(mock(ApplicationReadyEvent.class));
+
+        assertThat(ShardContext.callInShard(1, routingDataSource::determineCurrentLookupKey)).isEqualTo(1);
+        try (ShardContext.Selection ignored = ShardContext.select(0)) {
+            assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    void usesTheDirectoryShardOnlyDuringStartup() {
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ShardContext.DIRECTORY_SHARD);
+
+        routingDataSource.onApplicationEvent(mock(ApplicationReadyEvent.class));
+
+        assertThatThrownBy(routingDataSource::determineCurrentLookupKey)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("No shard selected");
+    }
+}
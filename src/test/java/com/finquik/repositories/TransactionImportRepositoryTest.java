@@ -0,0 +1,145 @@
+package com.finquik.repositories;
+
+import com.finquik.DTOs.TransactionImportMapping;
+import com.finquik.DTOs.TransactionImportResponse;
+import com.finquik.models.Account;
+import com.finquik.models.AccountType;
+import com.finquik.models.Category;
+import com.finquik.models.CategoryType;
+import com.finquik.models.User;
+import com.finquik.services.TransactionImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the COPY import end to end against the PostgreSQL database of the application. Not transactional, since
+ * every import commits (and drops its staging table) on its own; the test user and its data are deleted afterwards.
+ */
+@SpringBootTest
+class TransactionImportRepositoryTest {
+
+    private static final String CSV = """
+            date,amount,category,description
+            %1$s,-100.50,Supermercado,"Compra ""semanal"", sucursal centro"
+            %1$s,-20,supermercado,Kiosco
+            %1$s,3000,Sueldo,
+            %1$s,oops,Sueldo,Not imported
+            """;
+
+    @Autowired
+    private TransactionImportService transactionImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Account account;
+
+    @BeforeEach
+    void createUser() {
+        user = userRepository.save(User.builder()
+                .email("import-" + UUID.randomUUID() + "@finquik.com")
+                .password("not-a-real-hash")
+                .build());
+        account = accountRepository.save(Account.builder()
+                .user(user)
+                .name("Import test")
+                .type(AccountType.BANK_ACCOUNT)
+                .initialBalance(BigDecimal.ZERO)
+                .currentBalance(BigDecimal.ZERO)
+                .currency("ARS")
+                .build());
+        categoryRepository.save(Category.builder().user(user).name("Supermercado").type(CategoryType.EXPENSE).build());
+        categoryRepository.save(Category.builder().user(user).name("Sueldo").type(CategoryType.INCOME).build());
+    }
+
+    @AfterEach
+    void deleteUser() {
+        for (String table : new String[]{"transaction_rollups", "transactions", "deleted_records", "categories", "accounts"}) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE user_id = ?", user.getId());
+        }
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void importsQuotedRowsAndMergesThemIntoBalanceAndRollups() {
+        TransactionImportResponse response = importStatement();
+
+        assertThat(response.getImportedCount()).isEqualTo(3);
+        assertThat(response.getRejectedCount()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT description FROM transactions WHERE user_id = ? AND description_search LIKE 'compra%'",
+                String.class, user.getId()))
+                .containsExactly("Compra \"semanal\", sucursal centro");
+        assertThat(currentBalance()).isEqualByComparingTo("2879.50");
+        assertThat(rollups())
+                .containsEntry("Supermercado", "120.5000 x 2")
+                .containsEntry("Sueldo", "3000.0000 x 1");
+    }
+
+    @Test
+    void reimportingAddsToTheExistingRollupsInsteadOfReplacingThem() {
+        importStatement();
+        TransactionImportResponse response = importStatement();
+
+        assertThat(response.getImportedCount()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE user_id = ?",
+                Long.class, user.getId())).isEqualTo(6);
+        assertThat(currentBalance()).isEqualByComparingTo("5759.00");
+        // One row per category and month, upserted by the second import
+        assertThat(rollups())
+                .hasSize(2)
+                .containsEntry("Supermercado", "241.0000 x 4")
+                .containsEntry("Sueldo", "6000.0000 x 2");
+    }
+
+    private TransactionImportResponse importStatement() {
+        String csv = CSV.formatted(LocalDate.now().withDayOfMonth(1));
+        return transactionImportService.importTransactions(user.getId(), account.getId(), new TransactionImportMapping(),
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private BigDecimal currentBalance() {
+        return jdbcTemplate.queryForObject("SELECT current_balance FROM accounts WHERE id = ?",
+                BigDecimal.class, account.getId());
+    }
+
+    // "total x count" of the rollup of every category, income or expense by the category type
+    private Map<String, String> rollups() {
+        return jdbcTemplate.query("""
+                SELECT c.name, r.income_total + r.expense_total AS total, r.income_count + r.expense_count AS count
+                FROM transaction_rollups r
+                JOIN categories c ON c.id = r.category_id
+                WHERE r.user_id = ?
+                """, rs -> {
+            Map<String, String> rollups = new HashMap<>();
+            while (rs.next()) {
+                rollups.put(rs.getString("name"), rs.getBigDecimal("total").toPlainString() + " x " + rs.getLong("count"));
+            }
+            return rollups;
+        }, user.getId());
+    }
+}
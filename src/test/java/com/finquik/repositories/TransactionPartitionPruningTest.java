@@ -0,0 +1,122 @@
+package com.finquik.repositories;
+
+import com.finquik.DTOs.TransactionFilter;
+import com.finquik.models.CategoryType;
+import com.finquik.repositories.specifications.TransactionSpecification;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the queries built by {@link TransactionSpecification} only scan the partitions of the filtered dates.
+ * Criteria values are inlined so that the captured SQL can be explained as is. Needs the PostgreSQL database of
+ * the application; the partitions created here (far in the future, so they can't overlap existing ones) are
+ * rolled back with the test transaction.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.finquik.repositories.TransactionPartitionPruningTest$CapturingStatementInspector"
+})
+@Transactional
+class TransactionPartitionPruningTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionPartitionRepository partitionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createPartitions() {
+        List<YearMonth> existing = partitionRepository.findMonthlyPartitions();
+        for (int month = 1; month <= 3; month++) {
+            if (!existing.contains(YearMonth.of(2090, month))) {
+                partitionRepository.createMonthlyPartition(YearMonth.of(2090, month));
+            }
+        }
+    }
+
+    @Test
+    void dateRangeOnlyScansPartitionsOfTheRange() {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setStartDate(LocalDate.of(2090, 2, 1));
+        filter.setEndDate(LocalDate.of(2090, 2, 28));
+
+        assertThat(explain(filter))
+                .contains("transactions_p2090_02")
+                .doesNotContain("transactions_p2090_01", "transactions_p2090_03", "transactions_default",
+                        "transactions_archive");
+    }
+
+    @Test
+    void startDateSkipsOlderPartitions() {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setStartDate(LocalDate.of(2090, 3, 1));
+
+        assertThat(explain(filter))
+                .contains("transactions_p2090_03")
+                .doesNotContain("transactions_p2090_01", "transactions_p2090_02");
+    }
+
+    @Test
+    void otherFiltersKeepThePruning() {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setStartDate(LocalDate.of(2090, 1, 1));
+        filter.setEndDate(LocalDate.of(2090, 1, 31));
+        filter.setAccountId(1L);
+        filter.setType(CategoryType.EXPENSE);
+
+        assertThat(explain(filter))
+                .contains("transactions_p2090_01")
+                .doesNotContain("transactions_p2090_02", "transactions_p2090_03", "transactions_default");
+    }
+
+    @Test
+    void archiveIsOnlyScannedWhenTheRangeReachesIt() {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setEndDate(LocalDate.of(1990, 12, 31));
+
+        assertThat(explain(filter))
+                .contains("transactions_archive")
+                .doesNotContain("transactions_p2090_01", "transactions_p2090_02", "transactions_p2090_03");
+    }
+
+    private String explain(TransactionFilter filter) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        transactionRepository.findAll(TransactionSpecification.fromFilter(USER_ID, filter));
+
+        String sql = CapturingStatementInspector.STATEMENTS.stream()
+                .filter(statement -> statement.contains("from transactions"))
+                .findFirst()
+                .orElseThrow();
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
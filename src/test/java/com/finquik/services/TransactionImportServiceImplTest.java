@@ -0,0 +1,148 @@
+package com.finquik.services;
+
+import com.finquik.DTOs.TransactionImportError;
+import com.finquik.DTOs.TransactionImportMapping;
+import com.finquik.DTOs.TransactionImportResponse;
+import com.finquik.common.exceptions.BadRequestException;
+import com.finquik.models.Account;
+import com.finquik.models.Category;
+import com.finquik.models.CategoryType;
+import com.finquik.repositories.AccountRepository;
+import com.finquik.repositories.CategoryRepository;
+import com.finquik.repositories.TransactionImportRepository;
+import com.finquik.services.cache.UserDataVersionTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionImportServiceImplTest {
+
+    private static final Long USER_ID = 1L;
+    private static final Long ACCOUNT_ID = 10L;
+    private static final Long CATEGORY_ID = 20L;
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private final TransactionImportRepository transactionImportRepository = mock(TransactionImportRepository.class);
+    private final TransactionImportRepository.StagingWriter staging = mock(TransactionImportRepository.StagingWriter.class);
+    private final TransactionImportServiceImpl importService = new TransactionImportServiceImpl(
+            accountRepository, categoryRepository, transactionImportRepository, mock(UserDataVersionTracker.class));
+
+    @BeforeEach
+    void setUp() {
+        when(accountRepository.findByIdAndUserId(ACCOUNT_ID, USER_ID)).thenReturn(Optional.of(new Account()));
+        when(categoryRepository.findByUserId(USER_ID)).thenReturn(List.of(
+                Category.builder().id(CATEGORY_ID).name("Supermercado").type(CategoryType.EXPENSE).build()));
+        when(transactionImportRepository.openStaging()).thenReturn(staging);
+    }
+
+    @Test
+    void stagesQuotedRowsWithTheAbsoluteAmountAndTheNormalizedDescription() {
+        when(transactionImportRepository.insertStagedTransactions(USER_ID, ACCOUNT_ID)).thenReturn(1);
+
+        TransactionImportResponse response = importCsv("""
+                date,amount,category,description
+                2024-01-05,"-1234.50",supermercado,"Súper, ""Día""\"
+                """);
+
+        assertThat(response.getImportedCount()).isEqualTo(1);
+        assertThat(response.getRejectedCount()).isZero();
+        verify(staging).write(2L, CATEGORY_ID, new BigDecimal("1234.50"), "Súper, \"Día\"", "super, \"dia\"",
+                LocalDate.of(2024, 1, 5));
+        verify(transactionImportRepository).applyStagedBalanceDelta(ACCOUNT_ID);
+        verify(transactionImportRepository).applyStagedRollups(USER_ID, ACCOUNT_ID);
+    }
+
+    @Test
+    void rejectsMalformedRowsWithTheirLineAndImportsTheRest() {
+        when(transactionImportRepository.insertStagedTransactions(USER_ID, ACCOUNT_ID)).thenReturn(1);
+
+        TransactionImportResponse response = importCsv("""
+                date,amount,category
+                05/01/2024,10,Supermercado
+                2024-01-05,ten,Supermercado
+                2024-01-05,0,Supermercado
+                2024-01-05,10,Unknown
+                2024-01-05
+                %s,10,Supermercado
+                2024-01-06,10.25,Supermercado
+                """.formatted(LocalDate.now().plusDays(1)));
+
+        assertThat(response.getImportedCount()).isEqualTo(1);
+        assertThat(response.getRejectedCount()).isEqualTo(6);
+        assertThat(response.isErrorsTruncated()).isFalse();
+        assertThat(response.getErrors()).extracting(TransactionImportError::getLine).containsExactly(2L, 3L, 4L, 5L, 6L, 7L);
+        assertThat(response.getErrors()).extracting(TransactionImportError::getError).containsExactly(
+                "Invalid transaction date: '05/01/2024'",
+                "Invalid amount: 'ten'",
+                "Invalid amount: '0'",
+                "Category not found with name : 'Unknown'",
+                "Amount cannot be empty",
+                "Transaction date cannot be in the future");
+        verify(staging, times(1)).write(anyLong(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void reportsOnlyTheFirstErrorsOfAWrongFile() {
+        int rejected = TransactionImportServiceImpl.MAX_REPORTED_ERRORS + 5;
+        StringBuilder csv = new StringBuilder("date,amount,category\n");
+        for (int i = 0; i < rejected; i++) {
+            csv.append("2024-01-05,not-a-number,Supermercado\n");
+        }
+
+        TransactionImportResponse response = importCsv(csv.toString());
+
+        assertThat(response.getRejectedCount()).isEqualTo(rejected);
+        assertThat(response.getErrors()).hasSize(TransactionImportServiceImpl.MAX_REPORTED_ERRORS);
+        assertThat(response.isErrorsTruncated()).isTrue();
+        // Nothing was staged, so nothing is merged
+        verify(transactionImportRepository, never()).insertStagedTransactions(any(), any());
+        verify(transactionImportRepository, never()).applyStagedBalanceDelta(any());
+    }
+
+    @Test
+    void rejectsFilesWithoutTheMappedColumns() {
+        assertThatThrownBy(() -> importCsv("date,value,category\n2024-01-05,10,Supermercado\n"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("'amount'");
+        assertThatThrownBy(() -> importCsv(""))
+                .isInstanceOf(BadRequestException.class);
+        verify(transactionImportRepository, never()).openStaging();
+    }
+
+    @Test
+    void readsTheConfiguredDelimiterAndDateFormat() {
+        TransactionImportMapping mapping = new TransactionImportMapping();
+        mapping.setDelimiter(';');
+        mapping.setDateFormat("dd/MM/yyyy");
+
+        importService.importTransactions(USER_ID, ACCOUNT_ID, mapping, stream("date;amount;category\n05/01/2024;-7.5;Supermercado\n"));
+
+        verify(staging).write(eq(2L), eq(CATEGORY_ID), eq(new BigDecimal("7.5")), any(), any(), eq(LocalDate.of(2024, 1, 5)));
+    }
+
+    private TransactionImportResponse importCsv(String csv) {
+        return importService.importTransactions(USER_ID, ACCOUNT_ID, new TransactionImportMapping(), stream(csv));
+    }
+
+    private static ByteArrayInputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
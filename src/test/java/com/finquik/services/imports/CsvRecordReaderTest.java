@@ -0,0 +1,65 @@
+package com.finquik.services.imports;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void quotedFieldsKeepDelimitersQuotesAndLineBreaks() {
+        CsvRecordReader reader = reader("date,description\n2024-01-05,\"Coffee, \"\"to go\"\"\"\n2024-01-06,\"two\nlines\"\n", ',');
+
+        assertThat(reader.next()).containsExactly("date", "description");
+        assertThat(reader.next()).containsExactly("2024-01-05", "Coffee, \"to go\"");
+        assertThat(reader.next()).containsExactly("2024-01-06", "two\nlines");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void reportsTheLineOnWhichEachRecordStarts() {
+        CsvRecordReader reader = reader("a,b\r\n1,\"x\ny\"\r\n\r\n2,z\n", ',');
+
+        reader.next();
+        assertThat(reader.getRecordLineNumber()).isEqualTo(1);
+        assertThat(reader.next()).containsExactly("1", "x\ny");
+        assertThat(reader.getRecordLineNumber()).isEqualTo(2);
+        // The blank line is skipped, the record after it keeps its own line number
+        assertThat(reader.next()).containsExactly("2", "z");
+        assertThat(reader.getRecordLineNumber()).isEqualTo(5);
+    }
+
+    @Test
+    void readsOtherDelimitersAndSkipsTheByteOrderMark() {
+        CsvRecordReader reader = reader("\uFEFFdate;amount\n2024-01-05;-10,50", ';');
+
+        assertThat(reader.next()).containsExactly("date", "amount");
+        assertThat(reader.next()).containsExactly("2024-01-05", "-10,50");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void malformedRecordsAreReadAsTheyAre() {
+        CsvRecordReader reader = reader("only-one-field\n1,2,3,4\nx,\"unterminated\n", ',');
+
+        assertThat(reader.next()).containsExactly("only-one-field");
+        assertThat(reader.next()).containsExactly("1", "2", "3", "4");
+        // An unterminated quote runs to the end of the input instead of failing
+        assertThat(reader.next()).containsExactly("x", "unterminated\n");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void quotesInsideAnUnquotedFieldAreKept() {
+        CsvRecordReader reader = reader("5\" screen,\"\"\n", ',');
+
+        assertThat(reader.next()).isEqualTo(List.of("5\" screen", ""));
+    }
+
+    private static CsvRecordReader reader(String content, char delimiter) {
+        return new CsvRecordReader(new StringReader(content), delimiter);
+    }
+}